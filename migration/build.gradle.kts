@@ -1,5 +1,11 @@
+import org.gradle.workers.WorkAction
+import org.gradle.workers.WorkParameters
+import org.gradle.workers.WorkerExecutor
+import javax.inject.Inject
+
 plugins {
     java
+    id("org.graalvm.buildtools.native") version "0.10.6"
 }
 
 description = "Migration Project"
@@ -10,6 +16,25 @@ tasks.test {
     }
 }
 
+val generateStepIndex by tasks.registering {
+    description = "Generates the index of the bundled migration step resources, so they are found without scanning the class path."
+
+    val stepResources = fileTree("src/main/resources") { include("**/*.yml", "**/*.yaml") }
+    val indexDir = layout.buildDirectory.dir("generated/step-index")
+    inputs.files(stepResources)
+    outputs.dir(indexDir)
+
+    doLast {
+        val resources = mutableListOf<String>()
+        stepResources.visit { if (!isDirectory) resources.add(relativePath.pathString) }
+        val index = indexDir.get().file("META-INF/icm-migration/step-resources.idx").asFile
+        index.parentFile.mkdirs()
+        index.writeText(resources.sorted().joinToString("\n", postfix = "\n"))
+    }
+}
+
+sourceSets["main"].resources.srcDir(generateStepIndex)
+
 dependencies {
     implementation("io.github.classgraph:classgraph")
     implementation("org.slf4j:slf4j-api")
@@ -25,30 +50,180 @@ dependencies {
     }
 }
 
+graalvmNative {
+    binaries {
+        named("main") {
+            imageName.set("icm-migration")
+            mainClass.set("com.intershop.customization.migration.Migrator")
+            buildArgs.add("--no-fallback")
+        }
+    }
+}
+
+/**
+ * Options of a migration passed as project properties, e.g. `-Pparallel=4`. Dry runs, watching and migrating the
+ * changes since a revision are only supported for single root projects. Migrations in a Gradle worker can't fork
+ * shard workers, which need the migration classes on the class path of the process, and mustn't block the worker
+ * by watching the projects.
+ */
+fun Project.migrationOptions(batch: Boolean = false, inWorker: Boolean = false): List<String> = mutableListOf<String>().apply {
+    if (inWorker) {
+        listOf("shards", "watch").firstOrNull { hasProperty(it) }?.let {
+            throw GradleException("Option '-P$it' isn't supported by migrations in the Gradle daemon, use migrateAll instead.")
+        }
+    }
+    if (hasProperty("noAutoCommit")) add("--noAutoCommit")
+    if (batch) findProperty("concurrentRepositories")?.let { add("--concurrentRepositories=$it") }
+    findProperty("parallel")?.let { add("--parallel=$it") }
+    if (hasProperty("cartridgeMajor")) add("--cartridgeMajor")
+    findProperty("concurrentSteps")?.let { add("--concurrentSteps=$it") }
+    findProperty("shards")?.let { add("--shards=$it") }
+    if (hasProperty("prefetch")) add("--prefetch")
+    if (hasProperty("adaptive")) add("--adaptive")
+    findProperty("onlySteps")?.let { add("--onlySteps=$it") }
+    findProperty("onlyCartridges")?.let { add("--onlyCartridges=$it") }
+    if (hasProperty("checkpoint")) add("--checkpoint")
+    findProperty("stateDir")?.let { add("--stateDir=$it") }
+    if (hasProperty("resume")) add("--resume")
+    if (!batch) {
+        if (hasProperty("dryRun")) add("--dryRun")
+        if (hasProperty("watch")) add("--watch")
+        findProperty("since")?.let { add("--since=$it") }
+    }
+    if (hasProperty("spillOperations")) add("--spillOperations")
+}
+
 tasks.register<JavaExec>("migrateAll") {
     classpath = sourceSets["main"].runtimeClasspath
     mainClass.set("com.intershop.customization.migration.Migrator")
 
-    val noAutoCommit = project.hasProperty("noAutoCommit")
-
     args = mutableListOf<String>().apply {
         add("projects")
         project.findProperty("target")?.let { add(it.toString()) }
         project.findProperty("steps")?.let { add(it.toString()) }
-        if (noAutoCommit) add("--noAutoCommit")
+        addAll(project.migrationOptions())
     }
 }
 
-tasks.register<JavaExec>("migrateOne") {
+tasks.register<JavaExec>("migrateBatch") {
     classpath = sourceSets["main"].runtimeClasspath
     mainClass.set("com.intershop.customization.migration.Migrator")
 
-    val noAutoCommit = project.hasProperty("noAutoCommit")
+    args = mutableListOf<String>().apply {
+        add("batch")
+        project.findProperty("manifest")?.let { add(it.toString()) }
+        project.findProperty("steps")?.let { add(it.toString()) }
+        addAll(project.migrationOptions(batch = true))
+    }
+}
+
+tasks.register<JavaExec>("migrateOne") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.intershop.customization.migration.Migrator")
 
     args = mutableListOf<String>().apply {
         project.findProperty("task")?.let { add(it.toString()) }
         project.findProperty("target")?.let { add(it.toString()) }
         project.findProperty("steps")?.let { add(it.toString()) }
-        if (noAutoCommit) add("--noAutoCommit")
+        addAll(project.migrationOptions())
     }
-}
\ No newline at end of file
+}
+
+tasks.register<JavaExec>("migrationDaemon") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.intershop.customization.migration.daemon.MigrationDaemon")
+
+    args = mutableListOf<String>().apply {
+        project.findProperty("socket")?.let { add(it.toString()) }
+    }
+}
+
+/**
+ * Parameters of one migration executed by the Gradle Worker API.
+ */
+interface MigrationParameters : WorkParameters {
+    val args: ListProperty<String>
+}
+
+/**
+ * Executes one migration in a Gradle worker. The migration classes are loaded by an isolated class loader, which is
+ * reused by subsequent builds of the same Gradle daemon.
+ */
+abstract class MigrationWorkAction : WorkAction<MigrationParameters> {
+    override fun execute() {
+        val args = parameters.args.get().toTypedArray()
+        val migrator = Class.forName("com.intershop.customization.migration.Migrator", true, javaClass.classLoader)
+        val status = migrator.getMethod("run", Array<String>::class.java).invoke(null, args) as Int
+        if (status != 0) {
+            throw GradleException("Migration '${args.joinToString(" ")}' failed with status $status.")
+        }
+    }
+}
+
+/**
+ * Executes migrations inside the Gradle daemon instead of a forked JVM. Each root project is a separate work item,
+ * so Gradle migrates the root projects of a manifest concurrently (up to `--max-workers`). The cartridges of a root
+ * project are migrated by the same work item, since the changes are committed per migration step.
+ */
+abstract class MigrateInWorker : DefaultTask() {
+    @get:Inject
+    abstract val workerExecutor: WorkerExecutor
+
+    @get:Classpath
+    abstract val classpath: ConfigurableFileCollection
+
+    /** task ("project" or "projects") executed for each root project */
+    @get:Input
+    abstract val task: Property<String>
+
+    /** root project to migrate, alternatively to a manifest */
+    @get:Input
+    @get:Optional
+    abstract val target: Property<String>
+
+    /** manifest file listing the root projects to migrate, relative to the manifest */
+    @get:InputFile
+    @get:Optional
+    abstract val manifest: RegularFileProperty
+
+    @get:Input
+    abstract val steps: Property<String>
+
+    @get:Input
+    abstract val options: ListProperty<String>
+
+    @TaskAction
+    fun migrate() {
+        val targets = if (manifest.isPresent) {
+            val manifestFile = manifest.get().asFile
+            manifestFile.readLines()
+                .map { it.trim() }
+                .filter { it.isNotEmpty() && !it.startsWith("#") }
+                .map { manifestFile.absoluteFile.parentFile.resolve(it).normalize().path }
+        } else {
+            listOfNotNull(target.orNull)
+        }
+        if (targets.isEmpty()) {
+            throw GradleException("Missing parameter 'target' or 'manifest'.")
+        }
+
+        val workQueue = workerExecutor.classLoaderIsolation {
+            classpath.from(this@MigrateInWorker.classpath)
+        }
+        targets.forEach { rootProject ->
+            workQueue.submit(MigrationWorkAction::class.java) {
+                args.set(listOf(task.get(), rootProject, steps.get()) + options.get())
+            }
+        }
+    }
+}
+
+tasks.register<MigrateInWorker>("migrateInDaemon") {
+    classpath.from(sourceSets["main"].runtimeClasspath)
+    // gradle.properties defines empty defaults for task, target and steps
+    task.set(project.findProperty("task")?.toString()?.ifEmpty { null } ?: "projects")
+    project.findProperty("target")?.toString()?.ifEmpty { null }?.let { target.set(it) }
+    project.findProperty("manifest")?.toString()?.ifEmpty { null }?.let { manifest.set(file(it)) }
+    project.findProperty("steps")?.let { steps.set(it.toString()) }
+    options.set(project.migrationOptions(inWorker = true))
+}
@@ -0,0 +1,222 @@
+package com.intershop.customization.migration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.common.MigrationStepFolder;
+import com.intershop.customization.migration.git.GitValidationException;
+import com.intershop.customization.migration.utils.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Migrates several root projects (usually separate repositories) in one JVM. The migration steps are loaded once and
+ * shared, each root project is migrated by its own {@link Migrator} with its own git repository and
+ * {@link MigrationContext}. At the end, one combined report is logged.
+ * <p>
+ * The manifest lists one root project per line. Empty lines and lines starting with '#' are ignored, relative paths
+ * are resolved against the directory of the manifest.
+ */
+public class BatchMigrator
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchMigrator.class);
+
+    private static final String OPTION_CONCURRENT_REPOSITORIES = "--concurrentRepositories";
+    private static final String COMMENT = "#";
+
+    private final List<MigrationStep> steps;
+    private final String[] options;
+    private final int concurrentRepositories;
+
+    /**
+     * Result of the migration of one root project.
+     *
+     * @param rootProject the root project
+     * @param context the context of the migration, {@code null} if the migration didn't start
+     * @param error the reason for an aborted migration, {@code null} if the migration succeeded
+     */
+    public record RepositoryResult(File rootProject, MigrationContext context, String error)
+    {
+        public boolean isSuccessful()
+        {
+            return error == null;
+        }
+    }
+
+    /**
+     * Initializes the batch migration.
+     *
+     * @param migrationStepFolder folder containing the migration step descriptions
+     * @param options command line options applied to each migration, additionally "--concurrentRepositories=N"
+     *                defines the number of root projects migrated at the same time
+     */
+    public BatchMigrator(File migrationStepFolder, String[] options)
+    {
+        this(MigrationStepFolder.valueOf(migrationStepFolder.toPath()).getSteps(), options);
+    }
+
+    BatchMigrator(List<MigrationStep> steps, String[] options)
+    {
+        this.steps = steps;
+        this.options = options;
+        this.concurrentRepositories = Math.max(1, Migrator.getOptionValue(options, OPTION_CONCURRENT_REPOSITORIES)
+                                                          .map(Integer::parseInt)
+                                                          .orElse(1));
+        if (Migrator.hasOption(options, Migrator.OPTION_DRY_RUN))
+        {
+            LOGGER.warn("Option '{}' is not supported for batch migrations and ignored.", Migrator.OPTION_DRY_RUN);
+        }
+    }
+
+    /**
+     * Reads the root projects listed in a manifest file.
+     *
+     * @param manifest the manifest file
+     * @return the root projects in the order of the manifest
+     */
+    public static List<File> readManifest(Path manifest)
+    {
+        try
+        {
+            Path baseDir = manifest.toAbsolutePath().getParent();
+            return FileUtils.readAllLines(manifest)
+                            .stream()
+                            .map(String::trim)
+                            .filter(l -> !l.isEmpty() && !l.startsWith(COMMENT))
+                            .map(l -> baseDir.resolve(l).normalize().toFile())
+                            .toList();
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't read manifest '" + manifest + "'", e);
+        }
+    }
+
+    /**
+     * Migrates all root projects and logs a combined report.
+     *
+     * @param rootProjects the root projects to migrate
+     * @return {@code true} if all root projects were migrated, {@code false} if at least one migration was aborted
+     */
+    public boolean migrate(List<File> rootProjects)
+    {
+        List<RepositoryResult> results = migrateAll(rootProjects);
+        LOGGER.info(generateSummaryReport(results));
+        return results.stream().allMatch(RepositoryResult::isSuccessful);
+    }
+
+    /**
+     * Migrates all root projects, {@code concurrentRepositories} of them at the same time. A failing migration
+     * doesn't stop the migration of the other root projects.
+     *
+     * @param rootProjects the root projects to migrate
+     * @return the results in the order of the given root projects
+     */
+    List<RepositoryResult> migrateAll(List<File> rootProjects)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrentRepositories);
+        try
+        {
+            List<Future<RepositoryResult>> futures = new ArrayList<>();
+            for (File rootProject : rootProjects)
+            {
+                futures.add(executor.submit(() -> migrateRepository(rootProject)));
+            }
+
+            List<RepositoryResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++)
+            {
+                try
+                {
+                    results.add(futures.get(i).get());
+                }
+                catch(ExecutionException e)
+                {
+                    results.add(new RepositoryResult(rootProjects.get(i), null, String.valueOf(e.getCause())));
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for repository migrations", e);
+                }
+            }
+            return results;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private RepositoryResult migrateRepository(File rootProject)
+    {
+        if (!rootProject.isDirectory())
+        {
+            LOGGER.error("Project path '{}' is not a directory.", rootProject);
+            return new RepositoryResult(rootProject, null, "not a directory");
+        }
+
+        LOGGER.info("Convert projects at {}.", rootProject);
+        Migrator migrator = new Migrator(steps);
+        try
+        {
+            migrator.initializeGitRepository(!Migrator.hasOption(options, Migrator.OPTION_NO_AUTO_COMMIT), rootProject);
+            migrator.configure(options);
+            migrator.validateGitRepository();
+            migrator.migrateProjects(rootProject);
+
+            MigrationContext context = migrator.getContext();
+            return new RepositoryResult(rootProject, context,
+                            context.hasCriticalError() ? "migration preparation aborted due to critical errors" : null);
+        }
+        catch(GitValidationException e)
+        {
+            LOGGER.error("Validation of git repository failed: {}", e.getMessage());
+            return new RepositoryResult(rootProject, migrator.getContext(), e.getMessage());
+        }
+        catch(RuntimeException e)
+        {
+            LOGGER.error("Unexpected error during migration of '{}'", rootProject, e);
+            return new RepositoryResult(rootProject, migrator.getContext(), String.valueOf(e));
+        }
+        finally
+        {
+            migrator.closeGitRepository();
+            // the summary report of the repository is generated from the statistics and the listed operations
+            migrator.getContext().close();
+        }
+    }
+
+    /**
+     * Generates one report for all migrated root projects.
+     *
+     * @param results the results of the migrations
+     * @return the combined report
+     */
+    static String generateSummaryReport(List<RepositoryResult> results)
+    {
+        long failed = results.stream().filter(r -> !r.isSuccessful()).count();
+        StringBuilder report = new StringBuilder(String.format("Batch Migration Report: %d repositories (%d migrated, %d aborted)%n",
+                        results.size(), results.size() - failed, failed));
+        for (RepositoryResult result : results)
+        {
+            report.append(String.format("Repository '%s': %s%n", result.rootProject(),
+                            result.isSuccessful() ? "migrated" : "aborted (" + result.error() + ")"));
+            if (result.context() != null)
+            {
+                result.context().generateSummaryReport().lines().forEach(l -> report.append("  ").append(l).append("\n"));
+            }
+        }
+        return report.toString();
+    }
+}
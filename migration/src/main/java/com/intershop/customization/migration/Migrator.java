@@ -1,14 +1,55 @@
 package com.intershop.customization.migration;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import com.intershop.customization.migration.common.CancellationToken;
+import com.intershop.customization.migration.common.JournalOperationStore;
 import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
 import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.common.MigrationStepCache;
 import com.intershop.customization.migration.common.MigrationStepFolder;
+import com.intershop.customization.migration.execution.AdaptiveConcurrency;
+import com.intershop.customization.migration.execution.CartridgePrefetcher;
+import com.intershop.customization.migration.execution.CheckpointJournal;
+import com.intershop.customization.migration.execution.CostModel;
+import com.intershop.customization.migration.execution.DryRunOverlay;
+import com.intershop.customization.migration.execution.MigrationPlan;
+import com.intershop.customization.migration.execution.NameSelector;
+import com.intershop.customization.migration.execution.ProjectWatcher;
+import com.intershop.customization.migration.execution.ShardPool;
+import com.intershop.customization.migration.execution.StepFootprint;
+import com.intershop.customization.migration.execution.StepScheduler;
+import com.intershop.customization.migration.execution.TimeBudget;
 import com.intershop.customization.migration.git.GitInitializationException;
 import com.intershop.customization.migration.git.GitRepository;
 import com.intershop.customization.migration.git.GitValidationException;
@@ -23,12 +64,52 @@ public class Migrator
     private static final int POS_PATH = 1;
     private static final int POS_STEPS = 2;
 
-    private static final String OPTION_NO_AUTO_COMMIT = "--noAutoCommit";
+    static final String OPTION_NO_AUTO_COMMIT = "--noAutoCommit";
+    private static final String OPTION_PARALLEL = "--parallel";
+    private static final String OPTION_CARTRIDGE_MAJOR = "--cartridgeMajor";
+    private static final String OPTION_CONCURRENT_STEPS = "--concurrentSteps";
+    private static final String OPTION_RESUME = "--resume";
+    private static final String OPTION_CHECKPOINT = "--checkpoint";
+    private static final String OPTION_STATE_DIR = "--stateDir";
+    private static final String OPTION_SHARDS = "--shards";
+    private static final String OPTION_PREFETCH = "--prefetch";
+    private static final String OPTION_ADAPTIVE = "--adaptive";
+    private static final String OPTION_ONLY_STEPS = "--onlySteps";
+    private static final String OPTION_ONLY_CARTRIDGES = "--onlyCartridges";
+    static final String OPTION_DRY_RUN = "--dryRun";
+    static final String OPTION_WATCH = "--watch";
+    private static final String OPTION_SINCE = "--since";
+    private static final String OPTION_SPILL_OPERATIONS = "--spillOperations";
+    private static final String JOURNAL_FILE_NAME = "journal";
+    private static final String COSTS_FILE_NAME = "costs";
+    /** Exit status of {@link #run(String[])} if the git repository of the project failed the validation. */
+    public static final int STATUS_INVALID_REPOSITORY = 4;
     private static final int MAX_SEARCH_DEPTH_FOR_GIT_REPO = 1;
+    private static final int DEFAULT_ADAPTIVE_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
 
     private final File migrationStepFolder;
+    private final List<MigrationStep> steps;
     private Optional<GitRepository> gitRepository = Optional.empty();
     private final MigrationContext context = new MigrationContext();
+    private int parallelism = 1;
+    private boolean cartridgeMajor = false;
+    private int concurrentSteps = 1;
+    private boolean resume = false;
+    private boolean checkpoint = false;
+    private Path stateDir = getDefaultStateDir();
+    private File dryRunProjectDir;
+    private CheckpointJournal journal;
+    private CostModel costModel;
+    private TimeBudget timeBudget;
+    private final Map<String, TimeBudget.Budget> stepBudgets = new ConcurrentHashMap<>();
+    private int shards = 1;
+    private ShardPool shardPool;
+    private boolean prefetch = false;
+    private CartridgePrefetcher prefetcher;
+    private boolean adaptive = false;
+    private AdaptiveConcurrency concurrency;
+    private NameSelector stepSelector = NameSelector.ALL;
+    private NameSelector cartridgeSelector = NameSelector.ALL;
 
     /**
      * Initializes the migrator
@@ -37,65 +118,214 @@ public class Migrator
     public Migrator(File migrationStepFolder)
     {
         this.migrationStepFolder = migrationStepFolder;
+        this.steps = null;
+    }
+
+    /**
+     * Initializes the migrator with already loaded migration steps, which can be shared by several migrators.
+     * @param steps the migration steps to execute
+     */
+    public Migrator(List<MigrationStep> steps)
+    {
+        this.migrationStepFolder = null;
+        this.steps = steps;
     }
 
     /**
      * @param args the array of command line arguments
-     * <li>"project" as task</li>
-     * <li>directory to project app_sf_responsive</li>
-     * <li>directory to migration steps like src/main/resources/001_migration_7x10_to_11</li>
-     * <li>optional flags like "noAutoCommit"</li>
+     * <li>"project", "projects" or "batch" as task</li>
+     * <li>directory to project app_sf_responsive, or a manifest file listing the root projects for "batch"</li>
+     * <li>directory to migration steps like src/main/resources/001_migration_7x10_to_11, or several directories
+     * separated by the path separator to fuse them into one migration</li>
+     * <li>optional flags like "--noAutoCommit", "--parallel=N", "--cartridgeMajor", "--concurrentSteps=N", "--shards=N", "--prefetch", "--adaptive", "--onlySteps=GLOBS",
+     * "--onlyCartridges=GLOBS", "--checkpoint", "--stateDir=PATH", "--resume", "--dryRun", "--watch" or "--since=REVISION"</li>
      */
     public static void main(String[] args)
     {
-        Optional<GitRepository> gitRepository = Optional.empty();
+        int status = run(args);
+        // a repository failing the validation is only reported, as before
+        if (status != 0 && status != STATUS_INVALID_REPOSITORY)
+        {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Executes a migration task given by command line arguments with the steps loaded from the migration step
+     * folders through the {@link MigrationStepCache}. In contrast to {@link #main(String[])}, the JVM isn't terminated, so the task can be executed in a
+     * long-running process, e.g. a Gradle worker.
+     *
+     * @param args the array of command line arguments, see {@link #main(String[])}
+     * @return the exit status, 0 if the task was executed, {@link #STATUS_INVALID_REPOSITORY} if the git repository
+     *         failed the validation
+     */
+    public static int run(String[] args)
+    {
+        return run(args, folder -> MigrationStepCache.getDefaultSteps(folder.toPath()));
+    }
+
+    /**
+     * Executes a migration task given by command line arguments.
+     *
+     * @param args the array of command line arguments, see {@link #main(String[])}
+     * @param stepLoader loads the migration steps of a migration step folder
+     * @return the exit status, 0 if the task was executed, {@link #STATUS_INVALID_REPOSITORY} if the git repository
+     *         failed the validation
+     */
+    public static int run(String[] args, Function<File, List<MigrationStep>> stepLoader)
+    {
         try
         {
-            if (args.length >= POS_STEPS + 1)
+            if (args.length >= POS_STEPS + 1 && "batch".equals(args[POS_TASK]))
+            {
+                BatchMigrator batchMigrator = new BatchMigrator(loadSteps(args[POS_STEPS], getStepSelector(args), stepLoader), args);
+                if (!batchMigrator.migrate(BatchMigrator.readManifest(Path.of(args[POS_PATH]))))
+                {
+                    return 3;
+                }
+            }
+            else if (args.length >= POS_STEPS + 1)
             {
                 File projectPath = new File(args[POS_PATH]);
                 if (!projectPath.exists() || !projectPath.isDirectory())
                 {
                     LOGGER.error("Project path '{}' is not a directory.", projectPath);
-                    System.exit(2);
+                    return 2;
                 }
 
-                Migrator migrator = new Migrator(new File(args[POS_STEPS]));
-                migrator.initializeGitRepository(Arrays.stream(args)
-                                                       .noneMatch(o -> o.equalsIgnoreCase(OPTION_NO_AUTO_COMMIT)), projectPath);
+                boolean dryRun = hasOption(args, OPTION_DRY_RUN);
+                boolean watch = hasOption(args, OPTION_WATCH);
+                Migrator migrator = new Migrator(loadSteps(args[POS_STEPS], getStepSelector(args), stepLoader));
+                try
+                {
+                    migrator.initializeGitRepository(!dryRun && !watch && !hasOption(args, OPTION_NO_AUTO_COMMIT), projectPath);
+                    migrator.configure(args);
+                    migrator.validateGitRepository();
 
-                migrator.validateGitRepository();
+                    if ("project".equals(args[POS_TASK]))
+                    {
+                        LOGGER.info("Convert project at {}.", projectPath);
+                        if (dryRun)
+                        {
+                            migrator.migrateDryRun(projectPath, migrator::migrateProject);
+                        }
+                        else
+                        {
+                            migrator.migrateProject(projectPath);
+                        }
+                    }
+                    else if ("projects".equals(args[POS_TASK]))
+                    {
+                        LOGGER.info("Convert projects at {}.", projectPath);
+                        Optional<String> since = getOptionValue(args, OPTION_SINCE);
+                        Consumer<File> migration = migrator::migrateProjects;
+                        if (since.isPresent())
+                        {
+                            Set<String> changedFiles = migrator.getChangedFiles(projectPath, since.get());
+                            migration = dir -> migrator.migrateIncremental(dir, changedFiles);
+                        }
 
-                if ("project".equals(args[POS_TASK]))
-                {
-                    LOGGER.info("Convert project at {}.", projectPath);
-                    migrator.migrateProject(projectPath);
+                        if (watch)
+                        {
+                            migrator.watchProjects(projectPath);
+                        }
+                        else if (dryRun)
+                        {
+                            migrator.migrateDryRun(projectPath, migration);
+                        }
+                        else
+                        {
+                            migration.accept(projectPath);
+                        }
+                    }
                 }
-                else if ("projects".equals(args[POS_TASK]))
+                finally
                 {
-                    LOGGER.info("Convert projects at {}.", projectPath);
-                    migrator.migrateProjects(projectPath);
+                    migrator.closeGitRepository();
+                    migrator.getContext().close();
                 }
             }
             else
             {
                 LOGGER.error("Missing parameter '{}'.", args.length);
-                System.exit(1);
+                return 1;
             }
         }
         catch (GitValidationException gve)
         {
             LOGGER.error("Validation of git repository failed: {}", gve.getMessage());
+            return STATUS_INVALID_REPOSITORY;
         }
         catch (Exception e)
         {
             LOGGER.error("Unexpected error during migration", e);
-            System.exit(1);
+            return 1;
         }
-        finally
+        return 0;
+    }
+
+    /**
+     * Loads the migration steps of one or several migration step folders. The steps of several folders are fused
+     * into one plan, see {@link MigrationPlan}.
+     *
+     * @param stepFolders the migration step folders, separated by the path separator (':' or ';' on Windows)
+     * @param stepLoader loads the migration steps of a migration step folder
+     * @return the migration steps to execute
+     */
+    static List<MigrationStep> loadSteps(String stepFolders, Function<File, List<MigrationStep>> stepLoader)
+    {
+        return loadSteps(stepFolders, NameSelector.ALL, stepLoader);
+    }
+
+    /**
+     * Loads the selected migration steps of one or several migration step folders. Steps not selected are dropped
+     * before the folders are fused, so their migrators are never created.
+     *
+     * @param stepFolders the migration step folders, separated by the path separator (':' or ';' on Windows)
+     * @param stepSelector selector of the migration steps to execute, see {@link #OPTION_ONLY_STEPS}
+     * @param stepLoader loads the migration steps of a migration step folder
+     * @return the migration steps to execute
+     */
+    static List<MigrationStep> loadSteps(String stepFolders, NameSelector stepSelector,
+                    Function<File, List<MigrationStep>> stepLoader)
+    {
+        Map<String, List<MigrationStep>> stepsByFolder = new LinkedHashMap<>();
+        for (String stepFolder : stepFolders.split(File.pathSeparator))
         {
-            gitRepository.ifPresent(GitRepository::close);
+            File folder = new File(stepFolder);
+            stepsByFolder.put(folder.getName(), stepLoader.apply(folder));
         }
+        return MigrationPlan.fuse(stepsByFolder, stepSelector);
+    }
+
+    /**
+     * @param args the array of command line arguments
+     * @return the selector of the migration steps given by {@link #OPTION_ONLY_STEPS}, all steps by default
+     */
+    static NameSelector getStepSelector(String[] args)
+    {
+        return getOptionValue(args, OPTION_ONLY_STEPS).map(NameSelector::valueOf).orElse(NameSelector.ALL);
+    }
+
+    /**
+     * Applies the execution options given on the command line.
+     *
+     * @param args the array of command line arguments
+     */
+    void configure(String[] args)
+    {
+        setResume(hasOption(args, OPTION_RESUME));
+        setCheckpoint(hasOption(args, OPTION_CHECKPOINT));
+        getOptionValue(args, OPTION_STATE_DIR).map(Path::of).ifPresent(this::setStateDir);
+        getOptionValue(args, OPTION_PARALLEL).map(Integer::parseInt).ifPresent(this::setParallelism);
+        setCartridgeMajor(hasOption(args, OPTION_CARTRIDGE_MAJOR));
+        getOptionValue(args, OPTION_CONCURRENT_STEPS).map(Integer::parseInt).ifPresent(this::setConcurrentSteps);
+        getOptionValue(args, OPTION_SHARDS).map(Integer::parseInt).ifPresent(this::setShards);
+        setPrefetch(hasOption(args, OPTION_PREFETCH));
+        setAdaptive(hasOption(args, OPTION_ADAPTIVE));
+        setSpillOperations(hasOption(args, OPTION_SPILL_OPERATIONS));
+        setStepSelector(getStepSelector(args));
+        getOptionValue(args, OPTION_ONLY_CARTRIDGES).map(NameSelector::valueOf).ifPresent(this::setCartridgeSelector);
     }
 
     /**
@@ -126,137 +356,1139 @@ public class Migrator
         }
     }
 
+    /**
+     * Applies a migration to a copy of the project and prints the resulting changes as unified diff to the standard
+     * output. The project itself stays untouched. Only the files in the footprint of the migration steps are copied,
+     * see {@link DryRunOverlay}.
+     *
+     * @param projectDir the project directory
+     * @param migration the migration to apply, e.g. {@link #migrateProjects(File)}
+     */
+    protected void migrateDryRun(File projectDir, Consumer<File> migration)
+    {
+        dryRunProjectDir = projectDir;
+        StepFootprint footprint = StepFootprint.combine(getSteps().stream().map(StepFootprint::valueOf).toList());
+        try (DryRunOverlay overlay = DryRunOverlay.create(projectDir.toPath(), footprint))
+        {
+            migration.accept(overlay.getOverlayDir().toFile());
+            int changed = overlay.writeDiff(System.out);
+            LOGGER.info("Dry run finished, the migration changes {} files in '{}'.", changed, projectDir);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Dry run of migration for '" + projectDir + "' failed", e);
+        }
+        finally
+        {
+            dryRunProjectDir = null;
+        }
+    }
+
     /**
      * Migrate on root project
      */
     protected void migrateProjects(File rootProject)
     {
-        MigrationStepFolder steps = MigrationStepFolder.valueOf(migrationStepFolder.toPath());
-        List<MigrationStep> allSteps = steps.getSteps();
+        journal = openJournal(rootProject);
+        List<MigrationStep> allSteps = getPendingSteps(getSteps());
 
         if (!prepareMigrate(rootProject, true, allSteps))
         {
             return;
         }
 
-        for (MigrationStep step: allSteps)
+        costModel = openCostModel(rootProject);
+        int threads = adaptive && parallelism <= 1 ? DEFAULT_ADAPTIVE_PARALLELISM : parallelism;
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads, new WorkerThreadFactory()) : null;
+        concurrency = adaptive ? new AdaptiveConcurrency(threads, context::getOperationCount,
+                        AdaptiveConcurrency.DEFAULT_SAMPLE_INTERVAL_MILLIS) : null;
+        shardPool = shards > 1 && !cartridgeMajor ? new ShardPool(shards, ShardPool.getDefaultWorkerCommand()) : null;
+        prefetcher = prefetch ? new CartridgePrefetcher(CartridgePrefetcher.DEFAULT_MAX_BYTES) : null;
+        timeBudget = new TimeBudget();
+        try
         {
-            MigrationPreparer migrator = step.getMigrator();
-
-            migrator.migrateRoot(rootProject.toPath(), context);
-
-            File[] files = rootProject.listFiles();
-            if (files == null)
+            if (cartridgeMajor)
             {
-                return;
+                if (concurrentSteps > 1 || shards > 1)
+                {
+                    LOGGER.warn("Options '{}' and '{}' are ignored in cartridge major order.", OPTION_CONCURRENT_STEPS, OPTION_SHARDS);
+                }
+                migrateCartridgeMajor(rootProject, allSteps, executor);
+            }
+            else if (concurrentSteps > 1)
+            {
+                migrateScheduled(rootProject, allSteps, executor);
+            }
+            else
+            {
+                migrateStepMajor(rootProject, allSteps, executor);
+            }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+            if (shardPool != null)
+            {
+                shardPool.close();
+                shardPool = null;
+            }
+            if (prefetcher != null)
+            {
+                prefetcher.close();
+                prefetcher = null;
+            }
+            if (concurrency != null)
+            {
+                concurrency.close();
+                concurrency = null;
             }
-            for (File cartridgeDir : files)
+            timeBudget.close();
+            timeBudget = null;
+            stepBudgets.clear();
+            costModel.save();
+            costModel = null;
+        }
+
+        LOGGER.info(context.generateSummaryReport());
+    }
+
+    /**
+     * Watches a root project and re-applies the {@link MigrationPreparer#isFileScoped() file scoped} migration steps
+     * to changed files of its cartridges, e.g. files restored from the branch of the previous version. The project
+     * isn't walked again, only the changed files are migrated. Changes are not committed. Watching ends, when the
+     * current thread is interrupted.
+     *
+     * @param rootProject the root project directory
+     */
+    protected void watchProjects(File rootProject)
+    {
+        List<MigrationStep> watchedSteps = getSteps().stream().filter(s -> s.getMigrator().isFileScoped()).toList();
+        LOGGER.info("Watching '{}', changed files are migrated by the steps {}.", rootProject,
+                        watchedSteps.stream().map(MigrationStep::getId).toList());
+        try (ProjectWatcher watcher = new ProjectWatcher(rootProject.toPath()))
+        {
+            while (!Thread.currentThread().isInterrupted())
             {
-                if (cartridgeDir.isDirectory() && !cartridgeDir.getName().startsWith(".")
-                        && ((new File(cartridgeDir, "build.gradle")).exists() || (new File(cartridgeDir, "build.gradle.kts")).exists()))
+                Set<Path> changedFiles = watcher.awaitChanges(null);
+                if (changedFiles.isEmpty())
                 {
-                    migrator.migrate(cartridgeDir.toPath(), context);
+                    return;
                 }
+                List<Path> migratedFiles = migrateChangedFiles(rootProject, watchedSteps, changedFiles);
+                // files moved by the migration are acknowledged at their new location
+                watcher.acknowledge(changedFiles);
+                watcher.acknowledge(migratedFiles);
             }
-            gitRepository.ifPresent(r -> commitChanges(r, step));
         }
-
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
         LOGGER.info(context.generateSummaryReport());
     }
 
     /**
-     * Migrate one project (cartridge)
-     * @param projectDir the project to migrate
+     * Determines the files of a project changed since a revision, e.g. after the migrated branch was rebased onto a
+     * newer branch of the previous version.
+     *
+     * @param projectDir the project directory
+     * @param revision the revision to compare with
+     * @return the changed paths relative to the project directory
+     * @throws GitInitializationException if the project isn't located in a git repository
      */
-    protected void migrateProject(File projectDir)
+    protected Set<String> getChangedFiles(File projectDir, String revision) throws GitInitializationException
     {
-        MigrationStepFolder steps = MigrationStepFolder.valueOf(migrationStepFolder.toPath());
-        List<MigrationStep> allSteps = steps.getSteps();
+        Set<String> changedFiles;
+        if (gitRepository.isPresent())
+        {
+            changedFiles = gitRepository.get().getChangedFiles(revision);
+        }
+        else
+        {
+            try (GitRepository repository = new GitRepository(projectDir, MAX_SEARCH_DEPTH_FOR_GIT_REPO))
+            {
+                changedFiles = repository.getChangedFiles(revision);
+            }
+        }
+        LOGGER.info("{} files of '{}' changed since '{}'.", changedFiles.size(), projectDir, revision);
+        return changedFiles;
+    }
 
-        if (!prepareMigrate(projectDir, false, allSteps))
+    /**
+     * Re-applies the {@link MigrationPreparer#isFileScoped() file scoped} migration steps to the changed files of a
+     * root project instead of all files. Other steps are skipped. The changes of each step are committed separately.
+     *
+     * @param rootProject the root project directory
+     * @param changedFiles the changed paths relative to the root project, see {@link #getChangedFiles(File, String)}
+     */
+    protected void migrateIncremental(File rootProject, Set<String> changedFiles)
+    {
+        List<MigrationStep> allSteps = getSteps();
+        List<MigrationStep> fileScopedSteps = allSteps.stream().filter(s -> s.getMigrator().isFileScoped()).toList();
+        if (fileScopedSteps.size() < allSteps.size())
         {
-            return;
+            LOGGER.info("Skipping migration steps {}, they can't be restricted to changed files.",
+                            allSteps.stream().filter(s -> !fileScopedSteps.contains(s)).map(MigrationStep::getId).toList());
         }
+        Path rootPath = rootProject.toPath().toAbsolutePath();
+        migrateChangedFiles(rootProject, fileScopedSteps, changedFiles.stream().map(rootPath::resolve).toList());
+        LOGGER.info(context.generateSummaryReport());
+    }
+
+    /**
+     * Applies migration steps to changed files of the cartridges. Files outside of the selected cartridges are
+     * ignored. Files moved by a step are passed to the following steps at their new location. A failing step is
+     * logged and doesn't prevent the migration of further changes. If auto commit is enabled, the changes of each
+     * step are committed.
+     *
+     * @param rootProject the root project directory
+     * @param watchedSteps the file scoped migration steps to apply
+     * @param changedFiles the changed files
+     * @return the migrated files at their location after the last step
+     */
+    protected List<Path> migrateChangedFiles(File rootProject, List<MigrationStep> watchedSteps, Collection<Path> changedFiles)
+    {
+        long start = System.nanoTime();
+        Path rootPath = rootProject.toPath().toAbsolutePath();
+        Map<File, List<Path>> filesByCartridge = changedFiles.stream()
+                        .map(Path::toAbsolutePath)
+                        .filter(file -> file.startsWith(rootPath) && rootPath.relativize(file).getNameCount() > 1)
+                        .collect(Collectors.groupingBy(file -> rootPath.resolve(rootPath.relativize(file).getName(0)).toFile(),
+                                        LinkedHashMap::new, Collectors.toList()));
+        filesByCartridge.keySet().removeIf(c -> !cartridgeSelector.matches(c.getName()) || !isCartridgeDir(c));
 
-        for(MigrationStep step : allSteps)
+        for (MigrationStep step : watchedSteps)
         {
             MigrationPreparer migrator = step.getMigrator();
-
-            migrator.migrate(projectDir.toPath(), context);
+            filesByCartridge.replaceAll((cartridgeDir, files) -> {
+                List<Operation> operations = context.collectOperations(() -> {
+                    try
+                    {
+                        migrator.migrateFiles(cartridgeDir.toPath(), files.stream().filter(Files::exists).toList(), context);
+                    }
+                    catch(RuntimeException e)
+                    {
+                        LOGGER.error("Migration step '{}' failed for changed files of cartridge '{}'.", step.getId(), cartridgeDir.getName(), e);
+                    }
+                });
+                return resolveMovedFiles(files, operations);
+            });
             gitRepository.ifPresent(r -> commitChanges(r, step));
         }
+        LOGGER.info("Migrated {} changed files of {} cartridges in {} ms.", filesByCartridge.values().stream().mapToInt(List::size).sum(),
+                        filesByCartridge.size(), (System.nanoTime() - start) / 1_000_000);
+        return filesByCartridge.values().stream().flatMap(List::stream).toList();
+    }
 
-        LOGGER.info(context.generateSummaryReport());
+    /**
+     * Determines the new location of files moved by a migration step. A file is moved, if a successful move
+     * operation of the file or one of its folders was recorded.
+     *
+     * @param files the files before the step
+     * @param operations the operations recorded by the step
+     * @return the files after the step, files which were deleted are still contained
+     */
+    static List<Path> resolveMovedFiles(List<Path> files, List<Operation> operations)
+    {
+        List<Operation> moves = operations.stream()
+                        .filter(op -> op.type() == OperationType.MOVE && op.status() == OperationStatus.SUCCESS)
+                        .filter(op -> op.source() != null && op.target() != null)
+                        .toList();
+        if (moves.isEmpty())
+        {
+            return files;
+        }
+        List<Path> result = new ArrayList<>(files.size());
+        for (Path file : files)
+        {
+            Path resolved = file;
+            for (Operation move : moves)
+            {
+                Path source = move.source().toAbsolutePath();
+                if (!Files.exists(file) && file.startsWith(source))
+                {
+                    resolved = move.target().toAbsolutePath().resolve(source.relativize(file));
+                    break;
+                }
+            }
+            result.add(resolved);
+        }
+        return result;
     }
 
     /**
-     * Prepares the migration by executing all preparers for each migration step. This method is called before the
-     * actual migration process starts.
+     * Executes one migration step after another. Each step migrates the root project first and all cartridges
+     * afterward, the changes of each step are committed separately.
      *
-     * @param projectDir the project directory to prepare for migration
-     * @param isRoot {@code true} if the project is a root project, {@code false} otherwise
-     * @param allSteps the list of all migration steps to be executed
-     * @return {@code true} if preparation was successful, {@code false} if there were critical errors
+     * @param rootProject the root project directory
+     * @param allSteps the migration steps to execute
+     * @param executor executor for parallel cartridge migrations, {@code null} to migrate sequentially
      */
-    protected boolean prepareMigrate(File projectDir, boolean isRoot, List<MigrationStep> allSteps)
+    protected void migrateStepMajor(File rootProject, List<MigrationStep> allSteps, ExecutorService executor)
     {
         for (MigrationStep step : allSteps)
+        {
+            migrateStep(rootProject, step, executor);
+            journal.markCommitted(step.getId(), gitRepository.map(r -> commitChanges(r, step)).orElse(null));
+        }
+    }
+
+    /**
+     * Executes migration steps concurrently, as far as their declared read and write footprints allow it. Steps
+     * without a footprint are executed alone. The changes of steps with a footprint are committed in declared order,
+     * each commit contains only the changed files matching the write patterns of the step.
+     *
+     * @param rootProject the root project directory
+     * @param allSteps the migration steps to execute
+     * @param executor executor for parallel cartridge migrations, {@code null} to migrate sequentially
+     */
+    protected void migrateScheduled(File rootProject, List<MigrationStep> allSteps, ExecutorService executor)
+    {
+        ExecutorService stepExecutor = Executors.newFixedThreadPool(concurrentSteps, new WorkerThreadFactory("migration-step-"));
+        try
+        {
+            new StepScheduler(allSteps).execute(stepExecutor, step -> migrateStep(rootProject, step, executor),
+                            (step, footprint) -> journal.markCommitted(step.getId(),
+                                            gitRepository.map(r -> commitChanges(r, step, footprint)).orElse(null)));
+        }
+        finally
+        {
+            stepExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes one migration step. The root project is migrated first and alone, the cartridges afterward. Parts of
+     * the step recorded in the journal are skipped.
+     *
+     * @param rootProject the root project directory
+     * @param step the migration step to execute
+     * @param executor executor for parallel cartridge migrations, {@code null} to migrate sequentially
+     */
+    protected void migrateStep(File rootProject, MigrationStep step, ExecutorService executor)
+    {
+        startStepBudget(step);
+        try
         {
             MigrationPreparer migrator = step.getMigrator();
-            if (isRoot)
+
+            // root migration is always executed first and alone
+            migrateRoot(rootProject, step, migrator);
+
+            List<File> cartridgeDirs = listCartridgeDirs(rootProject).stream()
+                                                                     .filter(c -> !journal.isDone(step.getId(), c.getName()))
+                                                                     .toList();
+            if (shardPool != null && migrator.isParallelizable() && step.getPath() != null)
             {
-                migrator.prepareMigrateRoot(projectDir.toPath(), context);
+                Map<File, Long> costs = costModel.estimate(cartridgeDirs, List.of(step.getId()));
+                shardPool.migrate(step, List.copyOf(costs.keySet()), context, costs::get, (c, millis) -> {
+                    costModel.record(step.getId(), c.getName(), millis);
+                    journal.markDone(step.getId(), c.getName());
+                });
+            }
+            else if (executor != null && migrator.isParallelizable())
+            {
+                // most expensive cartridges first, so they don't delay the end of the step
+                migrateParallel(executor, costModel.estimate(cartridgeDirs, List.of(step.getId()))
+                                                   .keySet()
+                                                   .stream()
+                                                   .<Runnable>map(c -> () -> migrateCartridge(c, step, migrator))
+                                                   .toList());
             }
             else
             {
-                migrator.prepareMigrate(projectDir.toPath(), context);
+                migrateSequential(rootProject, cartridgeDirs, StepFootprint.valueOf(step),
+                                cartridgeDir -> migrateCartridge(cartridgeDir, step, migrator));
             }
         }
+        finally
+        {
+            finishStepBudget(step);
+            context.mergeThreadBuffers();
+        }
+    }
 
-        if (context.hasCriticalError())
+    /**
+     * Migrates cartridges one after another. If prefetching is enabled, the files of the next cartridge are read in
+     * the background while a cartridge is migrated.
+     *
+     * @param rootProject the root project directory
+     * @param cartridgeDirs the cartridges to migrate
+     * @param footprint footprint of the migration, defines the files to prefetch
+     * @param migration migrates one cartridge
+     */
+    private void migrateSequential(File rootProject, List<File> cartridgeDirs, StepFootprint footprint,
+                    Consumer<File> migration)
+    {
+        for (int i = 0; i < cartridgeDirs.size(); i++)
         {
-            LOGGER.error("Migration preparation aborted due to critical errors:\n  - {}",
-                    String.join("\n  - ", context.getCriticalErrors()));
-            return false;
+            if (prefetcher != null && i + 1 < cartridgeDirs.size())
+            {
+                prefetcher.prefetch(rootProject.toPath(), cartridgeDirs.get(i + 1), footprint);
+            }
+            migration.accept(cartridgeDirs.get(i));
         }
+    }
 
-        LOGGER.info("Migration preparation completed successfully.");
-        return true;
+    /**
+     * Migrates the root project with the preparer of a step, unless the journal records it as done or only some
+     * cartridges are selected.
+     *
+     * @param rootProject the root project directory
+     * @param step the migration step
+     * @param migrator the preparer of the step
+     */
+    private void migrateRoot(File rootProject, MigrationStep step, MigrationPreparer migrator)
+    {
+        if (!cartridgeSelector.isAll())
+        {
+            LOGGER.debug("Skipping root migration of step '{}', only cartridges '{}' are selected.", step.getId(), cartridgeSelector);
+            return;
+        }
+        if (!journal.isDone(step.getId(), CheckpointJournal.ROOT)
+                        && migrateWithinBudget(step, rootProject.toPath(), () -> migrator.migrateRoot(rootProject.toPath(), context)))
+        {
+            journal.markDone(step.getId(), CheckpointJournal.ROOT);
+        }
     }
 
     /**
-     * Commit changes to the git repository if there are any uncommited changes or new files in the repository.
-     * @param repository repository instance to commit changes
-     * @param step current migration step
+     * Migrates a cartridge with the preparer of a step and records it in the journal. The duration is recorded in
+     * the cost model. A cartridge exceeding the time budget of the step isn't recorded in the journal.
+     *
+     * @param cartridgeDir the cartridge directory
+     * @param step the migration step
+     * @param migrator the preparer of the step
      */
-    protected void commitChanges(GitRepository repository, MigrationStep step)
+    private void migrateCartridge(File cartridgeDir, MigrationStep step, MigrationPreparer migrator)
     {
-        if (!repository.isClean())
+        long start = System.nanoTime();
+        boolean finished = migrateWithinBudget(step, cartridgeDir.toPath(), () -> migrator.migrate(cartridgeDir.toPath(), context));
+        costModel.record(step.getId(), cartridgeDir.getName(), (System.nanoTime() - start) / 1_000_000);
+        if (finished)
         {
-            String commitMessage = step.getMessage();
-            String sha = repository.commit(commitMessage);
-            LOGGER.info("Commited changes of migration step to git repository at '{}' with message '{}'.", sha, commitMessage);
+            journal.markDone(step.getId(), cartridgeDir.getName());
         }
     }
 
-    public void validateGitRepository() throws GitValidationException
+    /**
+     * Runs the migration of the root project or a cartridge within the time budgets of its step, see
+     * {@link MigrationStep#getCartridgeTimeout()} and {@link MigrationStep#getStepTimeout()}. The preparer is
+     * cancelled by the {@link CancellationToken} of the context. A migration exceeding its budget is recorded as
+     * failed operation with the elapsed time.
+     *
+     * @param step the migration step
+     * @param resource the root project or cartridge directory
+     * @param migration the migration to run
+     * @return {@code true} if the migration finished within its budget, {@code false} otherwise
+     */
+    private boolean migrateWithinBudget(MigrationStep step, Path resource, Runnable migration)
     {
-        if (gitRepository.isEmpty())
+        return timeBudget.run(step, resource, stepBudgets.get(step.getId()), context, migration);
+    }
+
+    /**
+     * Starts the time budget of a migration step, the budgets of its root and cartridge migrations are nested in it.
+     *
+     * @param step the migration step
+     */
+    private void startStepBudget(MigrationStep step)
+    {
+        stepBudgets.put(step.getId(), timeBudget.start("Migration step '" + step.getId() + "'", step.getStepTimeout(), null));
+    }
+
+    /**
+     * Stops watching the time budget of a migration step.
+     *
+     * @param step the migration step
+     */
+    private void finishStepBudget(MigrationStep step)
+    {
+        TimeBudget.Budget budget = stepBudgets.remove(step.getId());
+        if (budget != null)
         {
-            return; // No git repository initialized, nothing to validate
+            budget.close();
         }
+    }
 
-        // Check if the git repository is clean
-        if (!gitRepository.get().isClean())
+    /**
+     * Executes all migration steps for one cartridge before continuing with the next cartridge. This keeps the
+     * files of a cartridge in the caches while they are processed by consecutive steps.
+     * <p>
+     * Steps migrating the root project are ordering barriers: all cartridges complete the preceding steps before the
+     * root project is migrated, and the cartridge part of such a step is executed after the root migration. Since
+     * steps are interleaved, changes are committed once per segment between two barriers.
+     *
+     * @param rootProject the root project directory
+     * @param allSteps the migration steps to execute
+     * @param executor executor for parallel cartridge migrations, {@code null} to migrate sequentially
+     */
+    protected void migrateCartridgeMajor(File rootProject, List<MigrationStep> allSteps, ExecutorService executor)
+    {
+        List<MigrationStep> segmentSteps = new ArrayList<>();
+        List<MigrationPreparer> segment = new ArrayList<>();
+        for (MigrationStep step : allSteps)
         {
-            String message = String.format(
-                            "Git repository at '%s' is not clean. Please commit or discard any changes before running the migration.",
-                            gitRepository.get().getRepositoryDirectory());
-            throw new GitValidationException(message);
+            MigrationPreparer migrator = step.getMigrator();
+            startStepBudget(step);
+            if (hasRootMigration(migrator))
+            {
+                migrateSegment(rootProject, segmentSteps, segment, executor);
+                segmentSteps.clear();
+                segment.clear();
+
+                migrateRoot(rootProject, step, migrator);
+            }
+            segmentSteps.add(step);
+            segment.add(migrator);
         }
+        migrateSegment(rootProject, segmentSteps, segment, executor);
+    }
 
-        String message = String.format("Git repository at '%s' is clean and ready for migration.",
-                        gitRepository.get().getRepositoryDirectory());
-        LOGGER.debug(message);
+    /**
+     * Migrates all cartridges through the given segment of migration steps and commits the changes.
+     *
+     * @param rootProject the root project directory
+     * @param segmentSteps the migration steps of the segment
+     * @param segment the preparers of the segment, in the same order as the steps
+     * @param executor executor for parallel cartridge migrations, {@code null} to migrate sequentially
+     */
+    private void migrateSegment(File rootProject, List<MigrationStep> segmentSteps, List<MigrationPreparer> segment,
+                    ExecutorService executor)
+    {
+        if (segment.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            List<File> cartridgeDirs = listCartridgeDirs(rootProject);
+            if (executor != null && segment.stream().allMatch(MigrationPreparer::isParallelizable))
+            {
+                List<String> stepIds = segmentSteps.stream().map(MigrationStep::getId).toList();
+                migrateParallel(executor, costModel.estimate(cartridgeDirs, stepIds)
+                                                   .keySet()
+                                                   .stream()
+                                                   .<Runnable>map(c -> () -> migrateCartridge(c, segmentSteps, segment))
+                                                   .toList());
+            }
+            else
+            {
+                StepFootprint footprint = StepFootprint.combine(segmentSteps.stream().map(StepFootprint::valueOf).toList());
+                migrateSequential(rootProject, cartridgeDirs, footprint, c -> migrateCartridge(c, segmentSteps, segment));
+            }
+
+            String sha;
+            if (segmentSteps.size() == 1)
+            {
+                sha = gitRepository.map(r -> commitChanges(r, segmentSteps.get(0))).orElse(null);
+            }
+            else
+            {
+                String message = "refactor: apply " + segmentSteps.size() + " migration steps per cartridge"
+                                + System.lineSeparator() + System.lineSeparator() + segmentSteps.stream()
+                                        .map(s -> "- " + s.getMessage())
+                                        .collect(Collectors.joining(System.lineSeparator()));
+                sha = gitRepository.map(r -> commitChanges(r, message)).orElse(null);
+            }
+            segmentSteps.forEach(s -> journal.markCommitted(s.getId(), sha));
+        }
+        finally
+        {
+            segmentSteps.forEach(this::finishStepBudget);
+            context.mergeThreadBuffers();
+        }
+    }
+
+    /**
+     * Runs all given preparers on one cartridge. Stops if the cartridge was removed by one of the preparers.
+     *
+     * @param cartridgeDir the cartridge directory
+     * @param steps the migration steps of the preparers
+     * @param preparers the preparers to execute in order
+     */
+    private void migrateCartridge(File cartridgeDir, List<MigrationStep> steps, List<MigrationPreparer> preparers)
+    {
+        for (int i = 0; i < preparers.size(); i++)
+        {
+            if (!isCartridgeDir(cartridgeDir))
+            {
+                LOGGER.debug("Cartridge '{}' was removed, skipping remaining migration steps.", cartridgeDir.getName());
+                return;
+            }
+            if (!journal.isDone(steps.get(i).getId(), cartridgeDir.getName()))
+            {
+                migrateCartridge(cartridgeDir, steps.get(i), preparers.get(i));
+            }
+        }
+    }
+
+    /**
+     * Checks if the preparer overrides one of the root migration methods.
+     *
+     * @param migrator the preparer to check
+     * @return {@code true} if the preparer migrates the root project, {@code false} otherwise
+     */
+    static boolean hasRootMigration(MigrationPreparer migrator)
+    {
+        try
+        {
+            Class<?> clazz = migrator.getClass();
+            return clazz.getMethod("migrateRoot", Path.class, MigrationContext.class).getDeclaringClass() != MigrationPreparer.class
+                            || clazz.getMethod("migrateRoot", Path.class).getDeclaringClass() != MigrationPreparer.class;
+        }
+        catch(NoSuchMethodException e)
+        {
+            throw new IllegalStateException("MigrationPreparer without migrateRoot method", e);
+        }
+    }
+
+    /**
+     * Lists the selected cartridge directories of a root project. Only selected directories are checked for being
+     * a cartridge. If the cartridges are selected by name without glob patterns, the root project isn't listed at all.
+     *
+     * @param rootProject the root project directory
+     * @return list of cartridge directories, empty if the root project can't be read
+     */
+    protected List<File> listCartridgeDirs(File rootProject)
+    {
+        Optional<List<String>> selectedNames = cartridgeSelector.getLiteralNames();
+        if (selectedNames.isPresent())
+        {
+            return selectedNames.get().stream().map(name -> new File(rootProject, name)).filter(this::isCartridgeDir).toList();
+        }
+        File[] files = rootProject.listFiles((dir, name) -> cartridgeSelector.matches(name));
+        if (files == null)
+        {
+            return List.of();
+        }
+        return Arrays.stream(files).filter(this::isCartridgeDir).toList();
+    }
+
+    /**
+     * Checks if the directory is a cartridge. A cartridge is a directory, which is not hidden and contains a
+     * build.gradle or build.gradle.kts file.
+     *
+     * @param cartridgeDir the directory to check
+     * @return {@code true} if the directory is a cartridge, {@code false} otherwise
+     */
+    protected boolean isCartridgeDir(File cartridgeDir)
+    {
+        return cartridgeDir.isDirectory() && !cartridgeDir.getName().startsWith(".")
+                        && ((new File(cartridgeDir, "build.gradle")).exists() || (new File(cartridgeDir, "build.gradle.kts")).exists());
+    }
+
+    /**
+     * Executes the given cartridge migrations concurrently and waits until all of them are finished. This barrier
+     * ensures that the changes of a migration step are complete before they are committed. With adaptive
+     * concurrency, the number of concurrent migrations is limited by {@link AdaptiveConcurrency}. If migrating a cartridge
+     * fails, the first failure is rethrown after all cartridges are finished.
+     *
+     * @param executor executor used to run the cartridge migrations
+     * @param tasks cartridge migrations to execute
+     */
+    protected void migrateParallel(ExecutorService executor, List<Runnable> tasks)
+    {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable task : tasks)
+        {
+            AdaptiveConcurrency limiter = concurrency;
+            futures.add(executor.submit(limiter != null ? () -> limiter.run(task) : task));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch(ExecutionException e)
+            {
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+                }
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for cartridge migrations", e);
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Migrate one project (cartridge)
+     * @param projectDir the project to migrate
+     */
+    protected void migrateProject(File projectDir)
+    {
+        journal = openJournal(projectDir);
+        List<MigrationStep> allSteps = getPendingSteps(getSteps());
+
+        if (!prepareMigrate(projectDir, false, allSteps))
+        {
+            return;
+        }
+
+        timeBudget = new TimeBudget();
+        try
+        {
+            for (MigrationStep step : allSteps)
+            {
+                MigrationPreparer migrator = step.getMigrator();
+
+                startStepBudget(step);
+                try
+                {
+                    migrateWithinBudget(step, projectDir.toPath(), () -> migrator.migrate(projectDir.toPath(), context));
+                }
+                finally
+                {
+                    finishStepBudget(step);
+                }
+                journal.markCommitted(step.getId(), gitRepository.map(r -> commitChanges(r, step)).orElse(null));
+            }
+        }
+        finally
+        {
+            timeBudget.close();
+            timeBudget = null;
+        }
+
+        LOGGER.info(context.generateSummaryReport());
+    }
+
+    /**
+     * @return the selected migration steps given to the constructor or loaded from the migration step folder
+     */
+    protected List<MigrationStep> getSteps()
+    {
+        List<MigrationStep> allSteps = steps != null ? steps : MigrationStepFolder.valueOf(migrationStepFolder.toPath()).getSteps();
+        if (stepSelector.isAll())
+        {
+            return allSteps;
+        }
+        List<MigrationStep> selectedSteps = allSteps.stream().filter(s -> stepSelector.matches(s.getId())).toList();
+        LOGGER.info("Selected {} of {} migration steps matching '{}'.", selectedSteps.size(), allSteps.size(), stepSelector);
+        return selectedSteps;
+    }
+
+    /**
+     * @return the context tracking the operations of the migration
+     */
+    public MigrationContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * Opens the checkpoint journal of a migration. The journal is only written if checkpoints are enabled or the
+     * migration is resumed, it is stored in the {@link #getStateFile(File, String) state folder} of the project.
+     *
+     * @param projectDir the project directory to migrate
+     * @return the journal, containing the recorded progress if the migration is resumed
+     */
+    protected CheckpointJournal openJournal(File projectDir)
+    {
+        // a dry run can't be resumed, it works on a new copy of the project
+        if (!checkpoint && !resume || dryRunProjectDir != null)
+        {
+            return CheckpointJournal.disabled();
+        }
+        Path journalFile = getStateFile(projectDir, JOURNAL_FILE_NAME);
+        LOGGER.debug("Recording migration progress in '{}'.", journalFile);
+        return CheckpointJournal.open(journalFile, resume);
+    }
+
+    /**
+     * Returns a file keeping the state of the migrations of a project between runs, e.g. the checkpoint journal. The
+     * files of a project are stored outside of the project in a sub folder of the state folder, which is named after
+     * the project folder and a hash of its absolute path. A dry run uses the state of the original project.
+     *
+     * @param projectDir the project directory
+     * @param fileName the name of the file
+     * @return the file, which may not exist yet
+     */
+    protected Path getStateFile(File projectDir, String fileName)
+    {
+        Path projectPath = (dryRunProjectDir != null ? dryRunProjectDir : projectDir).toPath().toAbsolutePath().normalize();
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(projectPath.toString().getBytes(StandardCharsets.UTF_8));
+            String projectKey = projectPath.getFileName() + "-" + HexFormat.of().formatHex(hash, 0, 8);
+            return stateDir.resolve(projectKey).resolve(fileName);
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * @return the default state folder {@code .icm-migration/projects} in the home directory of the user
+     */
+    public static Path getDefaultStateDir()
+    {
+        return Path.of(System.getProperty("user.home"), ".icm-migration", "projects");
+    }
+
+    /**
+     * Opens the durations of previous migrations. Like the journal, they are stored in the
+     * {@link #getStateFile(File, String) state folder} of the project.
+     *
+     * @param projectDir the project directory to migrate
+     * @return the cost model, empty for the first migration of the project
+     */
+    protected CostModel openCostModel(File projectDir)
+    {
+        return CostModel.load(getStateFile(projectDir, COSTS_FILE_NAME));
+    }
+
+    /**
+     * Filters the migration steps, which are already committed according to the journal.
+     *
+     * @param allSteps all migration steps
+     * @return the migration steps to execute
+     */
+    private List<MigrationStep> getPendingSteps(List<MigrationStep> allSteps)
+    {
+        List<MigrationStep> pendingSteps = allSteps.stream().filter(s -> !journal.isCommitted(s.getId())).toList();
+        if (pendingSteps.size() < allSteps.size())
+        {
+            LOGGER.info("Skipping {} migration steps, which are already committed.", allSteps.size() - pendingSteps.size());
+        }
+        return pendingSteps;
+    }
+
+    /**
+     * Prepares the migration by executing all preparers for each migration step. This method is called before the
+     * actual migration process starts.
+     *
+     * @param projectDir the project directory to prepare for migration
+     * @param isRoot {@code true} if the project is a root project, {@code false} otherwise
+     * @param allSteps the list of all migration steps to be executed
+     * @return {@code true} if preparation was successful, {@code false} if there were critical errors
+     */
+    protected boolean prepareMigrate(File projectDir, boolean isRoot, List<MigrationStep> allSteps)
+    {
+        for (MigrationStep step : allSteps)
+        {
+            MigrationPreparer migrator = step.getMigrator();
+            if (isRoot)
+            {
+                migrator.prepareMigrateRoot(projectDir.toPath(), context);
+            }
+            else
+            {
+                migrator.prepareMigrate(projectDir.toPath(), context);
+            }
+        }
+
+        if (context.hasCriticalError())
+        {
+            LOGGER.error("Migration preparation aborted due to critical errors:\n  - {}",
+                    String.join("\n  - ", context.getCriticalErrors()));
+            return false;
+        }
+
+        LOGGER.info("Migration preparation completed successfully.");
+        return true;
+    }
+
+    /**
+     * Commit changes to the git repository if there are any uncommited changes or new files in the repository.
+     * @param repository repository instance to commit changes
+     * @param step current migration step
+     * @return the SHA-1 hash of the commit or {@code null} if nothing was committed
+     */
+    protected String commitChanges(GitRepository repository, MigrationStep step)
+    {
+        return commitChanges(repository, step.getMessage());
+    }
+
+    /**
+     * Commit the changes of a step, which match the write patterns of its footprint. If the step doesn't declare a
+     * footprint, all changes are committed.
+     * @param repository repository instance to commit changes
+     * @param step current migration step
+     * @param footprint footprint of the current migration step
+     * @return the SHA-1 hash of the commit or {@code null} if nothing was committed
+     */
+    protected String commitChanges(GitRepository repository, MigrationStep step, StepFootprint footprint)
+    {
+        if (!footprint.isDeclared())
+        {
+            return commitChanges(repository, step);
+        }
+
+        String commitMessage = step.getMessage();
+        String sha = repository.commit(commitMessage, footprint::isWritten);
+        if (sha != null)
+        {
+            LOGGER.info("Commited changes of migration step to git repository at '{}' with message '{}'.", sha, commitMessage);
+        }
+        return sha;
+    }
+
+    /**
+     * Commit changes to the git repository if there are any uncommited changes or new files in the repository.
+     * @param repository repository instance to commit changes
+     * @param commitMessage message of the commit
+     * @return the SHA-1 hash of the commit or {@code null} if nothing was committed
+     */
+    protected String commitChanges(GitRepository repository, String commitMessage)
+    {
+        if (repository.isClean())
+        {
+            return null;
+        }
+        String sha = repository.commit(commitMessage);
+        LOGGER.info("Commited changes of migration step to git repository at '{}' with message '{}'.", sha, commitMessage);
+        return sha;
+    }
+
+    /**
+     * Sets the number of cartridges migrated concurrently. Only migration steps with a preparer declaring itself as
+     * {@link MigrationPreparer#isParallelizable() parallelizable} are executed in parallel.
+     *
+     * @param parallelism maximum number of concurrently migrated cartridges, values less than 2 disable parallel execution
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Switches the execution order. By default, each migration step is applied to all cartridges before the next
+     * step starts. In cartridge major order, all migration steps are applied to one cartridge before the next
+     * cartridge is migrated. Steps migrating the root project act as barriers in both modes.
+     *
+     * @param cartridgeMajor {@code true} to migrate cartridge by cartridge, {@code false} to migrate step by step
+     */
+    public void setCartridgeMajor(boolean cartridgeMajor)
+    {
+        this.cartridgeMajor = cartridgeMajor;
+    }
+
+    /**
+     * Sets the number of migration steps executed at the same time. Values greater than 1 enable the scheduling of
+     * steps based on their declared read and write footprints, see {@link StepScheduler}. This option is ignored in
+     * cartridge major order.
+     *
+     * @param concurrentSteps maximum number of concurrently executed migration steps
+     */
+    public void setConcurrentSteps(int concurrentSteps)
+    {
+        this.concurrentSteps = Math.max(1, concurrentSteps);
+    }
+
+    /**
+     * Sets the number of worker processes migrating the cartridges of a step, see {@link ShardPool}. Only migration
+     * steps with a {@link MigrationPreparer#isParallelizable() parallelizable} preparer are sharded, the root project
+     * is always migrated and committed by this process. This option is ignored in cartridge major order.
+     *
+     * @param shards number of worker processes, values less than 2 disable sharding
+     */
+    public void setShards(int shards)
+    {
+        this.shards = Math.max(1, shards);
+    }
+
+    /**
+     * Enables prefetching the files of the next cartridge, while cartridges are migrated one after another, see
+     * {@link CartridgePrefetcher}. This overlaps waiting for slow storage with the migration of the current cartridge.
+     *
+     * @param prefetch {@code true} to prefetch the next cartridge
+     */
+    public void setPrefetch(boolean prefetch)
+    {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Enables adapting the number of concurrent cartridge migrations to the heap usage, the open file descriptors
+     * and the throughput of the migration, see {@link AdaptiveConcurrency}. The parallelism is used as upper limit,
+     * if it isn't set, the number of available processors is used.
+     *
+     * @param adaptive {@code true} to adapt the number of concurrent cartridge migrations
+     */
+    public void setAdaptive(boolean adaptive)
+    {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Enables writing the recorded operations to a temporary journal file instead of keeping them in memory, see
+     * {@link JournalOperationStore}. Only the statistics per project and a sample of the operations listed in the
+     * summary report stay in memory, so the heap usage doesn't grow with the size of the project. The journal file is
+     * deleted, when the context is closed.
+     *
+     * @param spillOperations {@code true} to write the recorded operations to a journal file
+     */
+    public void setSpillOperations(boolean spillOperations)
+    {
+        if (spillOperations)
+        {
+            JournalOperationStore operationStore = JournalOperationStore.createTemporary();
+            context.setOperationStore(operationStore);
+            LOGGER.debug("Recording operations in '{}'.", operationStore.getJournalFile());
+        }
+    }
+
+    /**
+     * Restricts the migration to the steps, whose id (file name without extension) matches the selector. Other
+     * steps are neither instantiated nor executed.
+     *
+     * @param stepSelector selector of the migration steps to execute
+     */
+    public void setStepSelector(NameSelector stepSelector)
+    {
+        this.stepSelector = stepSelector;
+    }
+
+    /**
+     * Restricts the migration of a root project to the cartridges, whose directory name matches the selector. Other
+     * directories are not checked for being a cartridge. The root project itself isn't migrated, if cartridges are
+     * selected.
+     *
+     * @param cartridgeSelector selector of the cartridges to migrate
+     */
+    public void setCartridgeSelector(NameSelector cartridgeSelector)
+    {
+        this.cartridgeSelector = cartridgeSelector;
+    }
+
+    /**
+     * Enables resuming an aborted migration. Migration steps and cartridges recorded as finished in the checkpoint
+     * journal are skipped, see {@link CheckpointJournal}. Uncommitted changes of the aborted migration step are
+     * expected, so the git repository doesn't need to be clean.
+     *
+     * @param resume {@code true} to continue an aborted migration, {@code false} to start over
+     */
+    public void setResume(boolean resume)
+    {
+        this.resume = resume;
+    }
+
+    /**
+     * Enables recording the progress of the migration in a checkpoint journal, so an aborted migration can be
+     * resumed, see {@link #setResume(boolean)}. A resumed migration continues recording its progress.
+     *
+     * @param checkpoint {@code true} to record the progress of the migration
+     */
+    public void setCheckpoint(boolean checkpoint)
+    {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Sets the folder storing the state of the migrations between runs, e.g. the checkpoint journal.
+     *
+     * @param stateDir the state folder, by default {@link #getDefaultStateDir()}
+     */
+    public void setStateDir(Path stateDir)
+    {
+        this.stateDir = stateDir;
+    }
+
+    /**
+     * Checks if a flag like "--noAutoCommit" is given, ignoring the case.
+     *
+     * @param args the array of command line arguments
+     * @param option the option name including the leading dashes
+     * @return {@code true} if the flag is present
+     */
+    static boolean hasOption(String[] args, String option)
+    {
+        return Arrays.stream(args).anyMatch(o -> o.equalsIgnoreCase(option));
+    }
+
+    /**
+     * Returns the value of an option given as "--option=value".
+     *
+     * @param args the array of command line arguments
+     * @param option the option name including the leading dashes
+     * @return the value of the option, if present
+     */
+    static Optional<String> getOptionValue(String[] args, String option)
+    {
+        String prefix = option + "=";
+        return Arrays.stream(args)
+                     .filter(o -> o.regionMatches(true, 0, prefix, 0, prefix.length()))
+                     .map(o -> o.substring(prefix.length()))
+                     .findFirst();
+    }
+
+    /**
+     * Closes the git repository used for auto commits, if any.
+     */
+    public void closeGitRepository()
+    {
+        gitRepository.ifPresent(GitRepository::close);
+    }
+
+    public void validateGitRepository() throws GitValidationException
+    {
+        if (gitRepository.isEmpty())
+        {
+            return; // No git repository initialized, nothing to validate
+        }
+
+        if (resume)
+        {
+            LOGGER.info("Resuming migration, uncommitted changes of git repository at '{}' are kept.",
+                            gitRepository.get().getRepositoryDirectory());
+            return;
+        }
+
+        // Check if the git repository is clean
+        if (!gitRepository.get().isClean())
+        {
+            String message = String.format(
+                            "Git repository at '%s' is not clean. Please commit or discard any changes before running the migration.",
+                            gitRepository.get().getRepositoryDirectory());
+            throw new GitValidationException(message);
+        }
+
+        String message = String.format("Git repository at '%s' is clean and ready for migration.",
+                        gitRepository.get().getRepositoryDirectory());
+        LOGGER.debug(message);
+    }
+
+    /**
+     * Creates named daemon threads for the migration pools.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+
+        WorkerThreadFactory()
+        {
+            this("migration-worker-");
+        }
+
+        WorkerThreadFactory(String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
-}
+}
\ No newline at end of file
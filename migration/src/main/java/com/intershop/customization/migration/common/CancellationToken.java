@@ -0,0 +1,121 @@
+package com.intershop.customization.migration.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token signalling that a running migration should stop. Cancellation is cooperative: preparers check the token of
+ * the {@link MigrationContext} in their file loops and stop by throwing a {@link MigrationCancelledException}, e.g.
+ * <pre>
+ * for (Path file : files)
+ * {
+ *     context.getCancellationToken().throwIfCancelled();
+ *     ...
+ * }
+ * </pre>
+ * Resources, which can't check the token themselves, e.g. external processes, are released by an action registered
+ * with {@link #onCancel(Runnable)}.
+ */
+public class CancellationToken
+{
+    /** Token, which is never cancelled. */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private final boolean cancellable;
+    private final List<Runnable> actions = new ArrayList<>();
+    private volatile String reason;
+
+    /**
+     * Creates a token, which isn't cancelled yet.
+     */
+    public CancellationToken()
+    {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable)
+    {
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * @return {@code true} if the token is cancelled
+     */
+    public boolean isCancelled()
+    {
+        return reason != null;
+    }
+
+    /**
+     * @return the reason of the cancellation, {@code null} if the token isn't cancelled
+     */
+    public String getReason()
+    {
+        return reason;
+    }
+
+    /**
+     * Stops the current migration if the token is cancelled.
+     *
+     * @throws MigrationCancelledException if the token is cancelled
+     */
+    public void throwIfCancelled()
+    {
+        String cancelReason = reason;
+        if (cancelReason != null)
+        {
+            throw new MigrationCancelledException(cancelReason);
+        }
+    }
+
+    /**
+     * Cancels the token and executes the registered actions. Cancelling a token again has no effect.
+     *
+     * @param reason the reason of the cancellation
+     */
+    public void cancel(String reason)
+    {
+        List<Runnable> toRun;
+        synchronized (this)
+        {
+            if (!cancellable || this.reason != null)
+            {
+                return;
+            }
+            this.reason = reason;
+            toRun = List.copyOf(actions);
+            actions.clear();
+        }
+        toRun.forEach(Runnable::run);
+    }
+
+    /**
+     * Registers an action executed on cancellation, e.g. destroying an external process. If the token is already
+     * cancelled, the action is executed immediately.
+     *
+     * @param action the action to execute
+     * @return removes the action again, must be called when the guarded resource is released
+     */
+    public Runnable onCancel(Runnable action)
+    {
+        if (!cancellable)
+        {
+            return () -> {};
+        }
+        synchronized (this)
+        {
+            if (reason == null)
+            {
+                actions.add(action);
+                return () -> {
+                    synchronized (this)
+                    {
+                        actions.remove(action);
+                    }
+                };
+            }
+        }
+        action.run();
+        return () -> {};
+    }
+}
@@ -0,0 +1,219 @@
+package com.intershop.customization.migration.common;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
+
+/**
+ * Keeps the recorded operations on the heap in columns of primitive arrays. Project names, folders, file names and
+ * messages are stored once in dictionaries and referenced by their index, type and status are stored as bytes. The
+ * moved files of a migration share a few folders and messages, so an operation takes a few dozen bytes instead of the
+ * objects of an {@link Operation} with its paths.
+ * <p>
+ * This is the default store of a {@link MigrationContext}. Operations are passed to consumers in the order they were
+ * added.
+ */
+public class CompactOperationStore implements OperationStore
+{
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final OperationType[] TYPES = OperationType.values();
+    private static final OperationStatus[] STATUSES = OperationStatus.values();
+    private static final long[] NO_COUNTS = { 0, 0 };
+
+    private final Dictionary<String> projects = new Dictionary<>();
+    private final Dictionary<Path> folders = new Dictionary<>();
+    private final Dictionary<String> fileNames = new Dictionary<>();
+    private final Dictionary<String> messages = new Dictionary<>();
+
+    private int size;
+    private int[] projectIds = new int[INITIAL_CAPACITY];
+    private int[] sourceFolderIds = new int[INITIAL_CAPACITY];
+    private int[] sourceNameIds = new int[INITIAL_CAPACITY];
+    private int[] targetFolderIds = new int[INITIAL_CAPACITY];
+    private int[] targetNameIds = new int[INITIAL_CAPACITY];
+    private int[] messageIds = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+
+    // counts of the few aggregate operations by operation index
+    private final Map<Integer, long[]> aggregateCounts = new HashMap<>();
+
+    // open addressing hash table of operation index + 1, 0 marks a free slot
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    @Override
+    public boolean add(String projectName, Operation operation)
+    {
+        if (size == projectIds.length)
+        {
+            grow();
+        }
+        int i = size;
+        projectIds[i] = projects.id(projectName);
+        sourceFolderIds[i] = folders.id(getFolder(operation.source()));
+        sourceNameIds[i] = fileNames.id(getFileName(operation.source()));
+        targetFolderIds[i] = folders.id(getFolder(operation.target()));
+        targetNameIds[i] = fileNames.id(getFileName(operation.target()));
+        types[i] = (byte) operation.type().ordinal();
+        statuses[i] = (byte) operation.status().ordinal();
+
+        // equal operations are added once, like in a set of operations
+        int mask = slots.length - 1;
+        int slot = hash(i) & mask;
+        while (slots[slot] != 0)
+        {
+            if (isEqual(slots[slot] - 1, i))
+            {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = i + 1;
+        messageIds[i] = messages.id(operation.message());
+        if (operation.isAggregate())
+        {
+            aggregateCounts.put(i, new long[] { operation.fileCount(), operation.byteCount() });
+        }
+        size++;
+        if (size > slots.length / 2)
+        {
+            rehash();
+        }
+        return true;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Operation> consumer)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            long[] counts = aggregateCounts.getOrDefault(i, NO_COUNTS);
+            Operation operation = new Operation(TYPES[types[i]],
+                            getPath(sourceFolderIds[i], sourceNameIds[i]), getPath(targetFolderIds[i], targetNameIds[i]),
+                            STATUSES[statuses[i]], messages.get(messageIds[i]), counts[0], counts[1]);
+            consumer.accept(projects.get(projectIds[i]), operation);
+        }
+    }
+
+    /**
+     * @return the number of stored operations
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the hash of the columns compared by {@link #isEqual(int, int)}, consistent with {@link Operation#equals}
+     */
+    private int hash(int i)
+    {
+        int hash = projectIds[i];
+        hash = 31 * hash + sourceFolderIds[i];
+        hash = 31 * hash + sourceNameIds[i];
+        hash = 31 * hash + targetFolderIds[i];
+        hash = 31 * hash + targetNameIds[i];
+        hash = 31 * hash + types[i];
+        hash = 31 * hash + statuses[i];
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean isEqual(int i, int j)
+    {
+        return projectIds[i] == projectIds[j]
+                        && sourceFolderIds[i] == sourceFolderIds[j] && sourceNameIds[i] == sourceNameIds[j]
+                        && targetFolderIds[i] == targetFolderIds[j] && targetNameIds[i] == targetNameIds[j]
+                        && types[i] == types[j] && statuses[i] == statuses[j];
+    }
+
+    private void grow()
+    {
+        int capacity = projectIds.length * 2;
+        projectIds = Arrays.copyOf(projectIds, capacity);
+        sourceFolderIds = Arrays.copyOf(sourceFolderIds, capacity);
+        sourceNameIds = Arrays.copyOf(sourceNameIds, capacity);
+        targetFolderIds = Arrays.copyOf(targetFolderIds, capacity);
+        targetNameIds = Arrays.copyOf(targetNameIds, capacity);
+        messageIds = Arrays.copyOf(messageIds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+
+    private void rehash()
+    {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int i = 0; i < size; i++)
+        {
+            int slot = hash(i) & mask;
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * @return the folder of a path, the path itself if it has no file name (e.g. a root directory)
+     */
+    private static Path getFolder(Path path)
+    {
+        if (path == null)
+        {
+            return null;
+        }
+        return path.getFileName() != null ? path.getParent() : path;
+    }
+
+    private static String getFileName(Path path)
+    {
+        return path != null && path.getFileName() != null ? path.getFileName().toString() : null;
+    }
+
+    private Path getPath(int folderId, int nameId)
+    {
+        Path folder = folders.get(folderId);
+        String fileName = fileNames.get(nameId);
+        if (fileName == null)
+        {
+            return folder;
+        }
+        return folder != null ? folder.resolve(fileName) : Path.of(fileName);
+    }
+
+    /**
+     * Assigns consecutive ids to distinct values, {@link #NONE} to {@code null}.
+     */
+    private static final class Dictionary<T>
+    {
+        private final Map<T, Integer> ids = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        int id(T value)
+        {
+            if (value == null)
+            {
+                return NONE;
+            }
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        T get(int id)
+        {
+            return id == NONE ? null : values.get(id);
+        }
+    }
+}
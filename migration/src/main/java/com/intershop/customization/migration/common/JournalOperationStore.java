@@ -0,0 +1,222 @@
+package com.intershop.customization.migration.common;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.OperationCodec.ProjectOperation;
+
+/**
+ * Appends the recorded operations to a journal file in the format of the {@link OperationCodec}, so they don't stay on
+ * the heap of a migration of a large project. Reading the operations streams the journal.
+ * <p>
+ * The heap usage doesn't depend on the number of operations. Only a sample of the first {@value #MAX_LISTED}
+ * operations {@link OperationStore#isListed(Operation) listed} in the summary report stays in memory, so the report is
+ * built without reading the journal. Equal operations are detected by a 64-bit fingerprint of the project name and
+ * the compared fields of the operation, which is kept in a table of fixed size. Equal operations recorded close to
+ * each other (e.g. by several threads or cartridges of one step) are stored once, an operation recorded again after
+ * many other operations may be stored twice.
+ * <p>
+ * The journal file is deleted, when the store is closed.
+ */
+public class JournalOperationStore implements OperationStore
+{
+    static final int MAX_LISTED = 1000;
+    private static final int FINGERPRINT_SLOTS = 1 << 17;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path journalFile;
+    private final long[] fingerprints = new long[FINGERPRINT_SLOTS];
+    private final List<ProjectOperation> listed = new ArrayList<>();
+    private BufferedWriter writer;
+
+    /**
+     * Creates a store writing to the given journal file. An existing file is replaced.
+     *
+     * @param journalFile the journal file
+     */
+    public JournalOperationStore(Path journalFile)
+    {
+        this.journalFile = journalFile;
+        try
+        {
+            Files.write(journalFile, new byte[0]);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't create operation journal '" + journalFile + "'", e);
+        }
+    }
+
+    /**
+     * Creates a store writing to a temporary journal file, which is deleted when the store is closed.
+     *
+     * @return the store
+     */
+    public static JournalOperationStore createTemporary()
+    {
+        try
+        {
+            return new JournalOperationStore(Files.createTempFile("icm-migration", ".operations"));
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't create operation journal", e);
+        }
+    }
+
+    /**
+     * @return the journal file
+     */
+    public Path getJournalFile()
+    {
+        return journalFile;
+    }
+
+    @Override
+    public boolean add(String projectName, Operation operation)
+    {
+        if (!addFingerprint(fingerprint(projectName, operation)))
+        {
+            return false;
+        }
+        if (listed.size() < MAX_LISTED && OperationStore.isListed(operation))
+        {
+            listed.add(new ProjectOperation(projectName, operation));
+        }
+        try
+        {
+            if (writer == null)
+            {
+                writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            }
+            writer.write(OperationCodec.encode(projectName, operation));
+            writer.newLine();
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't write operation journal '" + journalFile + "'", e);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the journal file, it is opened again by the next added operation.
+     */
+    @Override
+    public void flush()
+    {
+        if (writer == null)
+        {
+            return;
+        }
+        try
+        {
+            writer.close();
+            writer = null;
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't write operation journal '" + journalFile + "'", e);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Operation> consumer)
+    {
+        flush();
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                OperationCodec.ProjectOperation decoded = OperationCodec.decode(line);
+                consumer.accept(decoded.projectName(), decoded.operation());
+            }
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't read operation journal '" + journalFile + "'", e);
+        }
+    }
+
+    /**
+     * Passes the sample of the listed operations, which is available after the store is closed.
+     */
+    @Override
+    public void forEachListed(BiConsumer<String, Operation> consumer)
+    {
+        listed.forEach(op -> consumer.accept(op.projectName(), op.operation()));
+    }
+
+    /**
+     * Deletes the journal file. The recorded operations except the sample of the listed operations are lost.
+     */
+    @Override
+    public void close()
+    {
+        flush();
+        try
+        {
+            Files.deleteIfExists(journalFile);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't delete operation journal '" + journalFile + "'", e);
+        }
+    }
+
+    /**
+     * Adds a fingerprint to the table. A fingerprint replaces the fingerprint stored in its slot before, so the
+     * table keeps the fingerprints of the recently added operations.
+     *
+     * @return {@code false} if the fingerprint is contained in the table
+     */
+    private boolean addFingerprint(long fingerprint)
+    {
+        long value = fingerprint != 0 ? fingerprint : 1;
+        int index = (int) (value ^ (value >>> 32)) & (FINGERPRINT_SLOTS - 1);
+        if (fingerprints[index] == value)
+        {
+            return false;
+        }
+        fingerprints[index] = value;
+        return true;
+    }
+
+    /**
+     * @return FNV-1a hash of the fields compared by {@link Operation#equals(Object)}
+     */
+    private static long fingerprint(String projectName, Operation operation)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, projectName);
+        hash = hash(hash, operation.type().name());
+        hash = hash(hash, operation.source() != null ? operation.source().toString() : null);
+        hash = hash(hash, operation.target() != null ? operation.target().toString() : null);
+        return hash(hash, operation.status().name());
+    }
+
+    private static long hash(long hash, String value)
+    {
+        if (value != null)
+        {
+            for (int i = 0; i < value.length(); i++)
+            {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // separates the fields and distinguishes null from an empty string
+        return (hash ^ (value != null ? 0x1f : 0x1e)) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,18 @@
+package com.intershop.customization.migration.common;
+
+/**
+ * Exception thrown by a migration preparer, which stops because its {@link CancellationToken} was cancelled, e.g.
+ * because the time budget of the migration step is exceeded.
+ */
+public class MigrationCancelledException extends RuntimeException
+{
+    /**
+     * Constructs a new MigrationCancelledException with the specified detail message.
+     *
+     * @param message the detail message explaining the reason for the cancellation
+     */
+    public MigrationCancelledException(String message)
+    {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package com.intershop.customization.migration.common;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -11,6 +12,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,11 +21,21 @@ import org.slf4j.LoggerFactory;
 /**
  * Global context for migration operations that tracks file and folder operations. Provides a way for migrators to
  * report success, skipped, unknown, warning and failed operations.
+ * <p>
+ * The context is shared by all cartridges of a migration run. Cartridges may be migrated in parallel, so operations
+ * are recorded into a buffer of the recording thread without contending for a lock. The buffers are merged into the
+ * operations of the context at the end of each migration step and whenever operations are read, duplicates recorded
+ * by different threads are removed by the merge.
+ * <p>
+ * The merged operations are kept in an {@link OperationStore}, by default in memory. On large projects, a
+ * {@link JournalOperationStore} keeps them in a file, only the statistics per project stay in memory.
  */
 public class MigrationContext
 {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
     private final List<String> criticalErrors = new ArrayList<>();
+    private final ThreadLocal<CancellationToken> cancellationToken = ThreadLocal.withInitial(() -> CancellationToken.NONE);
+    private final ThreadLocal<List<Operation>> collectedOperations = new ThreadLocal<>();
 
     public enum OperationType
     {
@@ -34,8 +47,29 @@ public class MigrationContext
         SUCCESS, SKIPPED, UNKNOWN, WARNING, FAILED
     }
 
-    public record Operation(OperationType type, Path source, Path target, OperationStatus status, String message)
+    /**
+     * A file or folder operation. An aggregate operation summarizes the operations on the files of a folder, e.g. all
+     * files moved from one folder to another, by the number of files and their size in bytes.
+     */
+    public record Operation(OperationType type, Path source, Path target, OperationStatus status, String message,
+                            long fileCount, long byteCount)
     {
+        /**
+         * Creates an operation on a single file or folder.
+         */
+        public Operation(OperationType type, Path source, Path target, OperationStatus status, String message)
+        {
+            this(type, source, target, status, message, 0, 0);
+        }
+
+        /**
+         * @return {@code true} if the operation summarizes operations on the files of a folder
+         */
+        public boolean isAggregate()
+        {
+            return fileCount > 0;
+        }
+
         @Override
         public String toString()
         {
@@ -45,6 +79,10 @@ public class MigrationContext
                     ? sourcePath
                     : String.format("%s -> %s", sourcePath, targetPath);
 
+            if (isAggregate())
+            {
+                return String.format("%s %s: %s (%d files, %d bytes)", status, type, path, fileCount, byteCount);
+            }
             return String.format("%s %s: %s (%s)", status, type, path, message);
         }
 
@@ -57,11 +95,96 @@ public class MigrationContext
                     && type() == operation.type()
                     && status() == operation.status();
         }
+
+        /**
+         * Consistent with {@link #equals(Object)}, the message and the counts are ignored.
+         */
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(type, source, target, status);
+        }
     }
 
-    // Store operations by cartridge/project
-    private final Map<String, Set<Operation>> operationsByProject = new TreeMap<>();
-    private final Map<String, Map<OperationStatus, Integer>> statisticsByProject = new HashMap<>();
+    /**
+     * Operations recorded by one thread and not merged yet. Only contended while the buffer is merged.
+     */
+    private static final class OperationBuffer
+    {
+        private final Thread owner = Thread.currentThread();
+        private Map<String, Set<Operation>> operationsByProject = new HashMap<>();
+        private int size;
+
+        synchronized boolean add(String projectName, Operation op)
+        {
+            if (!operationsByProject.computeIfAbsent(projectName, k -> new HashSet<>()).add(op))
+            {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        synchronized boolean isFull()
+        {
+            return size >= MAX_BUFFERED;
+        }
+
+        synchronized Map<String, Set<Operation>> drain()
+        {
+            Map<String, Set<Operation>> result = operationsByProject;
+            operationsByProject = new HashMap<>();
+            size = 0;
+            return result;
+        }
+    }
+
+    // operations a thread buffers before they are merged, so a step with many files doesn't keep them on the heap
+    static final int MAX_BUFFERED = 10_000;
+
+    private final Collection<OperationBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<OperationBuffer> buffer = ThreadLocal.withInitial(() -> {
+        OperationBuffer threadBuffer = new OperationBuffer();
+        buffers.add(threadBuffer);
+        return threadBuffer;
+    });
+    private final LongAdder recordedCount = new LongAdder();
+
+    // Store merged operations by cartridge/project
+    private OperationStore operationStore;
+    private final Map<String, Map<OperationStatus, Integer>> statisticsByProject = new TreeMap<>();
+    private final Map<String, Integer> aggregatesByProject = new HashMap<>();
+
+    /**
+     * Creates a context keeping the operations in memory, see {@link CompactOperationStore}.
+     */
+    public MigrationContext()
+    {
+        this(new CompactOperationStore());
+    }
+
+    /**
+     * Creates a context keeping the operations in the given store.
+     *
+     * @param operationStore the store of the merged operations
+     */
+    public MigrationContext(OperationStore operationStore)
+    {
+        this.operationStore = operationStore;
+    }
+
+    /**
+     * Replaces the store of the operations, e.g. to write them to a journal file on large projects. Operations merged
+     * before are transferred to the new store.
+     *
+     * @param operationStore the new store of the merged operations
+     */
+    public synchronized void setOperationStore(OperationStore operationStore)
+    {
+        this.operationStore.forEach(operationStore::add);
+        operationStore.flush();
+        this.operationStore = operationStore;
+    }
 
     /**
      * Record a file/folder operation
@@ -76,21 +199,82 @@ public class MigrationContext
     public void recordOperation(String projectName, OperationType type, Path source, Path target,
                                 OperationStatus status, String message)
     {
-        Operation op = new Operation(type, source, target, status, message);
+        recordOperation(projectName, new Operation(type, source, target, status, message));
+    }
+
+    /**
+     * Record a successful operation on all files of a folder as one operation, e.g. a deleted folder or the files
+     * moved from one folder to another. Failed operations on single files are recorded separately, e.g. by
+     * {@link #recordFailure(String, OperationType, Path, Path, String)}.
+     *
+     * @param projectName Project or cartridge name
+     * @param type Operation type (MOVE, DELETE, etc.)
+     * @param source Source folder (can be null for CREATE operations)
+     * @param target Target folder (can be null for DELETE operations)
+     * @param fileCount number of files, a folder without files is recorded as single operation
+     * @param byteCount total size of the files in bytes
+     */
+    public void recordAggregate(String projectName, OperationType type, Path source, Path target, long fileCount,
+                                long byteCount)
+    {
+        recordOperation(projectName, new Operation(type, source, target, OperationStatus.SUCCESS, null, fileCount, byteCount));
+    }
 
-        Set<Operation> projectOperations = operationsByProject.computeIfAbsent(projectName, k -> new HashSet<>());
-        if (!projectOperations.add(op))
+    /**
+     * Merges the operations recorded by all threads into the operations of the context, e.g. at the end of a
+     * migration step. Operations recorded before by any thread are ignored. Reading methods merge implicitly.
+     */
+    public synchronized void mergeThreadBuffers()
+    {
+        for (OperationBuffer threadBuffer : buffers)
         {
-            return;
+            // checked before draining, a thread alive now may record further operations until it terminates
+            boolean terminated = !threadBuffer.owner.isAlive();
+            merge(threadBuffer);
+            // a thread terminated before draining can't have recorded further operations
+            if (terminated)
+            {
+                buffers.remove(threadBuffer);
+            }
         }
+        operationStore.flush();
+    }
 
-        statisticsByProject.computeIfAbsent(projectName, k -> new EnumMap<>(OperationStatus.class))
-                .merge(status, 1, Integer::sum);
+    /**
+     * Merges the operations of a full thread buffer into the store. The store isn't flushed, the operations are
+     * written in batches of {@link #MAX_BUFFERED} operations per thread.
+     */
+    private synchronized void mergeFullBuffer(OperationBuffer threadBuffer)
+    {
+        merge(threadBuffer);
+    }
 
-        if (status == OperationStatus.FAILED)
-        {
-            LOGGER.warn("Failed operation in {}: {} - {}", projectName, op, message);
-        }
+    private void merge(OperationBuffer threadBuffer)
+    {
+        threadBuffer.drain().forEach((projectName, operations) -> {
+            for (Operation op : operations)
+            {
+                if (operationStore.add(projectName, op))
+                {
+                    statisticsByProject.computeIfAbsent(projectName, k -> new EnumMap<>(OperationStatus.class))
+                                       .merge(op.status(), 1, Integer::sum);
+                    if (op.isAggregate())
+                    {
+                        aggregatesByProject.merge(projectName, 1, Integer::sum);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Releases the resources of the operation store, e.g. the journal file of a {@link JournalOperationStore}. The
+     * summary report is still available, but a store may not return all operations anymore.
+     */
+    public synchronized void close()
+    {
+        mergeThreadBuffers();
+        operationStore.close();
     }
 
     /**
@@ -138,7 +322,7 @@ public class MigrationContext
      *
      * @param message The error message explaining why the migration should be aborted
      */
-    public void recordCriticalError(String message)
+    public synchronized void recordCriticalError(String message)
     {
         this.criticalErrors.add(message);
     }
@@ -148,7 +332,7 @@ public class MigrationContext
      *
      * @return {@code true} if a critical error has been recorded, {@code false} otherwise
      */
-    public boolean hasCriticalError()
+    public synchronized boolean hasCriticalError()
     {
         return !criticalErrors.isEmpty();
     }
@@ -158,19 +342,143 @@ public class MigrationContext
      *
      * @return List of critical error messages
      */
-    public List<String> getCriticalErrors()
+    public synchronized List<String> getCriticalErrors()
+    {
+        return List.copyOf(criticalErrors);
+    }
+
+    /**
+     * Get the recorded operations, e.g. to transfer them to another context.
+     *
+     * @return copy of the recorded operations by project or cartridge name
+     */
+    public synchronized Map<String, List<Operation>> getOperations()
+    {
+        mergeThreadBuffers();
+        Map<String, List<Operation>> result = new TreeMap<>();
+        operationStore.forEach((project, op) -> result.computeIfAbsent(project, k -> new ArrayList<>()).add(op));
+        result.replaceAll((project, operations) -> List.copyOf(operations));
+        return result;
+    }
+
+    /**
+     * Get the cancellation token of the migration running in the current thread. Preparers check the token in their
+     * file loops, see {@link CancellationToken}.
+     *
+     * @return the token, {@link CancellationToken#NONE} if the migration can't be cancelled
+     */
+    public CancellationToken getCancellationToken()
+    {
+        return cancellationToken.get();
+    }
+
+    /**
+     * Runs a migration in the current thread with the given cancellation token. Threads started by the migration
+     * don't inherit the token.
+     *
+     * @param token the cancellation token of the migration
+     * @param migration the migration to run
+     */
+    public void runCancellable(CancellationToken token, Runnable migration)
+    {
+        CancellationToken previous = cancellationToken.get();
+        cancellationToken.set(token);
+        try
+        {
+            migration.run();
+        }
+        finally
+        {
+            cancellationToken.set(previous);
+        }
+    }
+
+    /**
+     * Runs a migration in the current thread and collects the operations it records, e.g. to follow the files moved
+     * by a migration step. Operations recorded by other threads are not collected.
+     *
+     * @param migration the migration to run
+     * @return the operations recorded by the migration
+     */
+    public List<Operation> collectOperations(Runnable migration)
+    {
+        List<Operation> previous = collectedOperations.get();
+        List<Operation> collected = new ArrayList<>();
+        collectedOperations.set(collected);
+        try
+        {
+            migration.run();
+        }
+        finally
+        {
+            collectedOperations.set(previous);
+            if (previous != null)
+            {
+                previous.addAll(collected);
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * Get the number of recorded operations, e.g. to measure the progress of a migration. The number is maintained
+     * without merging, so it may include operations recorded by several threads, which are merged into one.
+     *
+     * @return number of recorded operations of all projects
+     */
+    public long getOperationCount()
     {
-        return criticalErrors;
+        return recordedCount.sum();
+    }
+
+    /**
+     * Record an operation recorded by another context, e.g. in a worker process.
+     *
+     * @param projectName Project or cartridge name
+     * @param operation the operation to record
+     */
+    public void recordOperation(String projectName, Operation operation)
+    {
+        List<Operation> collected = collectedOperations.get();
+        if (collected != null)
+        {
+            collected.add(operation);
+        }
+        OperationBuffer threadBuffer = buffer.get();
+        if (!threadBuffer.add(projectName, operation))
+        {
+            return;
+        }
+        recordedCount.increment();
+        if (threadBuffer.isFull())
+        {
+            mergeFullBuffer(threadBuffer);
+        }
+
+        if (operation.status() == OperationStatus.FAILED)
+        {
+            LOGGER.warn("Failed operation in {}: {} - {}", projectName, operation, operation.message());
+        }
     }
 
     /**
      * Generate a summary report of all operations
      */
-    public String generateSummaryReport()
+    public synchronized String generateSummaryReport()
     {
+        mergeThreadBuffers();
         StringBuilder report = new StringBuilder("Migration Summary Report:\n");
 
-        for (String project : operationsByProject.keySet())
+        // only aggregates and operations listed for review are read from the store
+        Map<String, List<Operation>> reviewedByProject = new HashMap<>();
+        if (!aggregatesByProject.isEmpty() || statisticsByProject.values()
+                               .stream()
+                               .anyMatch(stats -> stats.keySet().stream().anyMatch(MigrationContext::isReviewed)))
+        {
+            operationStore.forEachListed((project, op) -> reviewedByProject.computeIfAbsent(project, k -> new ArrayList<>()).add(op));
+        }
+
+        for (String project : statisticsByProject.keySet())
         {
             Map<OperationStatus, Integer> stats = statisticsByProject.getOrDefault(project, Collections.emptyMap());
             int success = stats.getOrDefault(OperationStatus.SUCCESS, 0);
@@ -183,37 +491,55 @@ public class MigrationContext
             report.append(String.format("Project '%s': %d operations (%d successful, %d skipped, %d unknown, %d warnings, %d failed)%n",
                     project, operationsSum, success, skipped, unknown, warning, failed));
 
+            List<Operation> reviewed = reviewedByProject.getOrDefault(project, Collections.emptyList());
+
+            // List aggregated operations instead of their files
+            if (aggregatesByProject.containsKey(project))
+            {
+                report.append("  Aggregated operations:\n");
+                appendListed(report, reviewed.stream().filter(Operation::isAggregate).toList(),
+                                aggregatesByProject.get(project));
+            }
+
             // List unknown operations for quick review
             if (unknown > 0)
             {
                 report.append("  Unknown operations:\n");
-                operationsByProject.get(project)
-                        .stream()
-                        .filter(op -> op.status() == OperationStatus.UNKNOWN)
-                        .forEach(op -> report.append("    - ").append(op).append("\n"));
+                appendListed(report, reviewed.stream().filter(op -> op.status() == OperationStatus.UNKNOWN).toList(), unknown);
             }
 
             // List warnings for quick review
             if (warning > 0)
             {
                 report.append("  Warnings:\n");
-                operationsByProject.get(project)
-                        .stream()
-                        .filter(op -> op.status() == OperationStatus.WARNING)
-                        .forEach(op -> report.append("    - ").append(op).append("\n"));
+                appendListed(report, reviewed.stream().filter(op -> op.status() == OperationStatus.WARNING).toList(), warning);
             }
 
             // List failed operations for quick review
             if (failed > 0)
             {
                 report.append("  Failed operations:\n");
-                operationsByProject.get(project)
-                        .stream()
-                        .filter(op -> op.status() == OperationStatus.FAILED)
-                        .forEach(op -> report.append("    - ").append(op).append("\n"));
+                appendListed(report, reviewed.stream().filter(op -> op.status() == OperationStatus.FAILED).toList(), failed);
             }
         }
 
         return report.toString();
     }
+
+    /**
+     * Appends the listed operations of a section, and the number of operations the store didn't list.
+     */
+    private static void appendListed(StringBuilder report, List<Operation> listed, int count)
+    {
+        listed.forEach(op -> report.append("    - ").append(op).append("\n"));
+        if (listed.size() < count)
+        {
+            report.append("    - ... ").append(count - listed.size()).append(" more, not listed\n");
+        }
+    }
+
+    private static boolean isReviewed(OperationStatus status)
+    {
+        return status == OperationStatus.UNKNOWN || status == OperationStatus.WARNING || status == OperationStatus.FAILED;
+    }
 }
@@ -1,6 +1,7 @@
 package com.intershop.customization.migration.common;
 
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Interface for implementing migration preparers that handle specific migration tasks.
@@ -92,6 +93,55 @@ public interface MigrationPreparer
     {
     }
 
+    /**
+     * Declares whether {@link #migrate(Path, MigrationContext)} can be executed concurrently for different cartridges.
+     * The same preparer instance is shared by all cartridges of a migration step, so implementations returning
+     * {@code true} must not keep cartridge specific state in fields.
+     *
+     * @return {@code true} if cartridges can be migrated in parallel, {@code false} otherwise
+     */
+    default boolean isParallelizable()
+    {
+        return false;
+    }
+
+    /**
+     * Declares whether the migration of a cartridge can be restricted to single files, see
+     * {@link #migrateFiles(Path, List, MigrationContext)}. Only such preparers are re-applied to changed files in
+     * watch mode.
+     *
+     * @return {@code true} if single files can be migrated, {@code false} otherwise
+     */
+    default boolean isFileScoped()
+    {
+        return false;
+    }
+
+    /**
+     * Migrates the given files of a cartridge, as if the cartridge only contained these files. Files not handled by
+     * this preparer are ignored. Only called if the preparer {@link #isFileScoped() is file scoped}.
+     *
+     * @param resource Path to the cartridge containing the files
+     * @param files Paths to the (changed) files to migrate
+     * @param context The migration context for tracking operations and their results
+     */
+    default void migrateFiles(Path resource, List<Path> files, MigrationContext context)
+    {
+    }
+
+    /**
+     * Declares whether the complete effect of this preparer is replaced by a preparer executed later, e.g. because
+     * the later one overwrites all files written by this one. Used to drop redundant steps, when several migration
+     * step folders are fused into one plan.
+     *
+     * @param later a preparer executed after this one
+     * @return {@code true} if this preparer can be skipped, {@code false} otherwise
+     */
+    default boolean isSupersededBy(MigrationPreparer later)
+    {
+        return false;
+    }
+
     /**
      * Extracts the name of the resource from its path. For cartridge migrations, this is typically the cartridge name.
      *
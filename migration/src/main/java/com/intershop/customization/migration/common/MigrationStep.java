@@ -1,12 +1,21 @@
 package com.intershop.customization.migration.common;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.intershop.customization.migration.utils.FileUtils;
 import org.yaml.snakeyaml.Yaml;
@@ -23,23 +32,89 @@ public class MigrationStep
     public static MigrationStep valueOf(Path optionsPath)
     {
         MigrationStep result = new MigrationStep();
+        result.id = getStepId(optionsPath);
+        result.path = optionsPath.toAbsolutePath();
         result.importOptions(optionsPath);
         return result;
     }
 
+    /**
+     * Creates a step of an already bound step description, e.g. read from the {@link MigrationStepCache}.
+     *
+     * @param optionsPath path of the step description
+     * @param description the bound step description
+     * @return the step
+     */
+    static MigrationStep valueOf(Path optionsPath, Description description)
+    {
+        MigrationStep result = new MigrationStep();
+        result.id = getStepId(optionsPath);
+        result.path = optionsPath.toAbsolutePath();
+        result.description = description;
+        return result;
+    }
+
+    /**
+     * Step description bound to typed values. The options are specific to the migrator, so they are kept as parsed
+     * and read by the migrator, see {@link MigrationPreparer#setStep(MigrationStep)}.
+     *
+     * @param migrator class name of the migrator
+     * @param message commit message of the step
+     * @param reads glob patterns of the read paths, {@code null} if not declared
+     * @param writes glob patterns of the written paths, {@code null} if not declared
+     * @param cartridgeTimeout time budget per cartridge, {@code null} if not declared
+     * @param stepTimeout time budget of the step, {@code null} if not declared
+     * @param options the options of the migrator
+     */
+    record Description(String migrator, String message, List<String> reads, List<String> writes,
+                    Duration cartridgeTimeout, Duration stepTimeout, Map<String, Object> options) implements Serializable
+    {
+    }
+
     private static final String MIGRATOR_KEY = "migrator";
     private static final String OPTIONS_KEY = "options";
     private static final String MESSAGE_KEY = "message";
+    private static final String READS_KEY = "reads";
+    private static final String WRITES_KEY = "writes";
+    private static final String CARTRIDGE_TIMEOUT_KEY = "cartridgeTimeout";
+    private static final String STEP_TIMEOUT_KEY = "stepTimeout";
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)\\s*(ms|s|m|h)?");
 
     private Map<String, Object> yamlConf = Collections.emptyMap();
+    private String id;
+    private Path path;
+    private volatile Description description;
+    private volatile Supplier<MigrationPreparer> migratorFactory;
 
     public Map<String, Object> importOptions(String content)
     {
         Yaml yaml = new Yaml();
         yamlConf = yaml.load(content);
+        description = null;
+        migratorFactory = null;
         return yamlConf;
     }
 
+    /**
+     * Binds the parsed step description once.
+     *
+     * @return the bound step description
+     * @throws IllegalArgumentException if a time budget isn't a valid duration
+     */
+    Description getDescription()
+    {
+        Description result = description;
+        if (result == null)
+        {
+            Map<String, Object> options = getRootKey(OPTIONS_KEY);
+            result = new Description(getRootKey(MIGRATOR_KEY), getRootKey(MESSAGE_KEY), getRootKey(READS_KEY),
+                            getRootKey(WRITES_KEY), getRootDuration(CARTRIDGE_TIMEOUT_KEY),
+                            getRootDuration(STEP_TIMEOUT_KEY), options != null ? options : Collections.emptyMap());
+            description = result;
+        }
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T getRootKey(String key)
     {
@@ -49,33 +124,187 @@ public class MigrationStep
     @SuppressWarnings("unchecked")
     public <T> T getOption(String key)
     {
-        Map<String, Object> op = getRootKey(OPTIONS_KEY);
-        return (T) op.get(key);
+        return (T) getDescription().options().get(key);
     }
 
-    @SuppressWarnings("unchecked")
     public String getMessage()
     {
-        return getRootKey(MESSAGE_KEY);
+        return getDescription().message();
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * @return identifier of the step, which is the file name of the step description without extension
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return path of the step description, {@code null} if the step wasn't loaded from a file
+     */
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return glob patterns (relative to the root project) of the paths read by this step, empty if not declared
+     */
+    public List<String> getReads()
+    {
+        return Objects.requireNonNullElse(getDescription().reads(), Collections.emptyList());
+    }
+
+    /**
+     * @return glob patterns (relative to the root project) of the paths written by this step, empty if not declared
+     */
+    public List<String> getWrites()
+    {
+        return Objects.requireNonNullElse(getDescription().writes(), Collections.emptyList());
+    }
+
+    /**
+     * Steps declaring at least one read or write pattern can be scheduled independently of other steps.
+     *
+     * @return {@code true} if the step declares the paths it reads and writes, {@code false} otherwise
+     */
+    public boolean hasFootprint()
+    {
+        return getDescription().reads() != null || getDescription().writes() != null;
+    }
+
+    /**
+     * Time budget of the step for the root project and for each cartridge, e.g. {@code cartridgeTimeout: 10m}.
+     * Durations are given as number with unit (ms, s, m or h, seconds by default) or in ISO-8601 format, e.g.
+     * {@code PT10M}.
+     *
+     * @return the time budget per cartridge, {@code null} if not declared
+     */
+    public Duration getCartridgeTimeout()
+    {
+        return getDescription().cartridgeTimeout();
+    }
+
+    /**
+     * Time budget of the whole step, including the root project and all cartridges, e.g. {@code stepTimeout: 1h}.
+     *
+     * @return the time budget of the step, {@code null} if not declared
+     * @see #getCartridgeTimeout()
+     */
+    public Duration getStepTimeout()
+    {
+        return getDescription().stepTimeout();
+    }
+
+    private Duration getRootDuration(String key)
+    {
+        Object value = getRootKey(key);
+        if (value == null)
+        {
+            return null;
+        }
+        String text = value.toString().trim();
+        try
+        {
+            if (text.startsWith("P") || text.startsWith("p"))
+            {
+                return Duration.parse(text);
+            }
+            Matcher matcher = DURATION_PATTERN.matcher(text);
+            if (!matcher.matches())
+            {
+                throw new IllegalArgumentException("Invalid duration '" + text + "' of '" + key + "' in migration step '" + id + "'");
+            }
+            long amount = Long.parseLong(matcher.group(1));
+            // plain numbers are seconds
+            return switch (Objects.requireNonNullElse(matcher.group(2), "s"))
+            {
+                case "ms" -> Duration.ofMillis(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                default -> Duration.ofSeconds(amount);
+            };
+        }
+        catch(DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Invalid duration '" + text + "' of '" + key + "' in migration step '" + id + "'", e);
+        }
+    }
+
+    /**
+     * Creates a new instance of the migrator of this step. Built-in migrators are created by the
+     * {@link PreparerRegistry}, other migrator classes are resolved reflectively once per step. Steps are shared by
+     * all migrations of a process, e.g. the jobs of the migration daemon or the repositories of a batch migration,
+     * and migrators may keep the state of one migration in fields, so each call returns a new instance. A migration
+     * uses one instance for all cartridges of a step.
+     *
+     * @return the migrator configured with this step
+     */
     public MigrationPreparer getMigrator()
     {
-        String clazzName = getRootKey(MIGRATOR_KEY);
-        MigrationPreparer result;
+        MigrationPreparer result = getMigratorFactory().get();
+        result.setStep(this);
+        return result;
+    }
+
+    private Supplier<MigrationPreparer> getMigratorFactory()
+    {
+        Supplier<MigrationPreparer> result = migratorFactory;
+        if (result == null)
+        {
+            String clazzName = getDescription().migrator();
+            result = PreparerRegistry.getFactory(clazzName).orElseGet(() -> getReflectiveFactory(clazzName));
+            migratorFactory = result;
+        }
+        return result;
+    }
+
+    private Supplier<MigrationPreparer> getReflectiveFactory(String clazzName)
+    {
+        Constructor<? extends MigrationPreparer> constructor;
         try
         {
-            Class<MigrationPreparer> clazz = (Class<MigrationPreparer>) getClass().getClassLoader().loadClass(clazzName);
-            result = clazz.getConstructor().newInstance();
-            result.setStep(this);
+            constructor = getClass().getClassLoader()
+                                    .loadClass(Objects.requireNonNull(clazzName, "missing '" + MIGRATOR_KEY + "'"))
+                                    .asSubclass(MigrationPreparer.class)
+                                    .getConstructor();
         }
-        catch(InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
-                        | NoSuchMethodException | SecurityException | ClassNotFoundException e)
+        catch(NoSuchMethodException | SecurityException | ClassNotFoundException | ClassCastException
+                        | NullPointerException e)
         {
             throw new IllegalArgumentException("not an existing migrator class", e);
         }
-        return result;
+        return () -> {
+            try
+            {
+                return constructor.newInstance();
+            }
+            catch(InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e)
+            {
+                throw new IllegalArgumentException("not an existing migrator class", e);
+            }
+        };
+    }
+
+    /**
+     * Validates the step description once, before any project is migrated: the migrator class must exist and the
+     * declared time budgets must be valid durations.
+     *
+     * @throws IllegalArgumentException if the step description is invalid
+     */
+    public void validate()
+    {
+        // binding validates the time budgets
+        Description bound = getDescription();
+        try
+        {
+            getMigratorFactory();
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Migration step '" + id + "' has an invalid migrator '" + bound.migrator() + "'", e);
+        }
     }
 
     Map<String, Object> importOptions(Path path)
@@ -92,7 +321,33 @@ public class MigrationStep
 
     private Map<String, Object>  importOptions(URI resourceURI)
     {
+        id = getStepId(Paths.get(resourceURI));
+        path = Paths.get(resourceURI);
         return importOptions(Paths.get(resourceURI));
     }
 
+    /**
+     * Creates a copy of this step with another identifier, e.g. to qualify steps of several migration step folders.
+     *
+     * @param newId the identifier of the copy
+     * @return the copy
+     */
+    public MigrationStep withId(String newId)
+    {
+        MigrationStep result = new MigrationStep();
+        result.yamlConf = yamlConf;
+        result.id = newId;
+        result.path = path;
+        result.description = description;
+        result.migratorFactory = migratorFactory;
+        return result;
+    }
+
+    private static String getStepId(Path path)
+    {
+        String fileName = path.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0 ? fileName.substring(0, extension) : fileName;
+    }
+
 }
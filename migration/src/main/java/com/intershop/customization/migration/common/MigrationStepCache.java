@@ -0,0 +1,317 @@
+package com.intershop.customization.migration.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.intershop.customization.migration.common.MigrationStep.Description;
+import com.intershop.customization.migration.utils.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the validated migration steps of migration step folders in memory and in files, so repeated migrations skip
+ * parsing the step descriptions and resolving their migrator classes. A long-running process, e.g. the migration
+ * daemon, keeps the loaded steps with their resolved migrator classes in memory, other processes read the bound step
+ * descriptions from the cache file of the folder.
+ * <p>
+ * A folder is checked by the modification time and size of its step descriptions. The contents are only hashed if
+ * these differ from the cached ones, so a step description checked out again with the same content still uses the
+ * cache, and a changed step description is parsed again. Cache files not used for {@link #MAX_AGE} are deleted.
+ * <p>
+ * The steps are {@link MigrationStep#validate() validated} before they are cached, so an invalid step description
+ * fails the migration before any project is changed.
+ */
+public final class MigrationStepCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationStepCache.class);
+
+    // changed whenever the structure of the cached data changes
+    private static final String FORMAT_VERSION = "2";
+    private static final String CACHE_FILE_EXTENSION = ".steps";
+    static final Duration MAX_AGE = Duration.ofDays(30);
+
+    // step descriptions only consist of collections, strings, numbers, booleans, dates and durations
+    private static final ObjectInputFilter CACHE_FILTER = ObjectInputFilter.Config.createFilter(
+                    "java.base/*;" + CachedFolder.class.getName() + ";" + CachedStep.class.getName() + ";"
+                                    + FileStamp.class.getName() + ";" + Description.class.getName() + ";!*");
+
+    private static final MigrationStepCache DEFAULT = new MigrationStepCache(getDefaultCacheDir());
+
+    /**
+     * Modification time and size of a step description.
+     */
+    private record FileStamp(String fileName, long lastModified, long size) implements Serializable { }
+
+    /**
+     * Bound step description of one step.
+     */
+    private record CachedStep(String fileName, Description description) implements Serializable { }
+
+    /**
+     * Content of a cache file.
+     *
+     * @param stamps stamps of the step descriptions the steps were loaded from
+     * @param contentHash hash of the names and contents of the step descriptions
+     * @param steps the steps ordered by file name
+     */
+    private record CachedFolder(List<FileStamp> stamps, String contentHash, List<CachedStep> steps) implements Serializable { }
+
+    /**
+     * Steps of a folder kept in memory.
+     */
+    private record LoadedFolder(List<FileStamp> stamps, String contentHash, List<MigrationStep> steps) { }
+
+    private final Path cacheDir;
+    private final Map<Path, LoadedFolder> folders = new HashMap<>();
+
+    /**
+     * @param cacheDir folder containing the cache files
+     */
+    public MigrationStepCache(Path cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return the default cache folder {@code .icm-migration/steps} in the home directory of the user
+     */
+    public static Path getDefaultCacheDir()
+    {
+        return Path.of(System.getProperty("user.home"), ".icm-migration", "steps");
+    }
+
+    /**
+     * Returns the migration steps of a folder from the cache of the process, which uses the default cache folder.
+     *
+     * @param folder folder containing the migration step descriptions
+     * @return the migration steps ordered by file name
+     * @see #getDefaultCacheDir()
+     */
+    public static List<MigrationStep> getDefaultSteps(Path folder)
+    {
+        return DEFAULT.getSteps(folder);
+    }
+
+    /**
+     * Returns the migration steps of a folder. If the cache doesn't contain the current step descriptions, they are
+     * parsed, validated and added to the cache. A cache file, which can't be read or written, is logged and ignored.
+     *
+     * @param folder folder containing the migration step descriptions
+     * @return the migration steps ordered by file name, the same instances as long as the folder is unchanged
+     * @throws IllegalArgumentException if a step description is invalid
+     */
+    public synchronized List<MigrationStep> getSteps(Path folder)
+    {
+        Path normalizedFolder = folder.toAbsolutePath().normalize();
+        List<Path> stepFiles;
+        List<FileStamp> stamps;
+        try
+        {
+            stepFiles = FileUtils.listFiles(normalizedFolder, Files::isRegularFile, Comparator.comparing(p -> p.getFileName().toString()));
+            stamps = stamp(stepFiles);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't read migration step folder '" + normalizedFolder + "'", e);
+        }
+
+        LoadedFolder loaded = folders.get(normalizedFolder);
+        if (loaded != null && loaded.stamps().equals(stamps))
+        {
+            return loaded.steps();
+        }
+
+        Path cacheFile = getCacheFile(normalizedFolder);
+        if (loaded == null && Files.exists(cacheFile))
+        {
+            loaded = read(cacheFile, normalizedFolder);
+            if (loaded != null && loaded.stamps().equals(stamps))
+            {
+                touch(cacheFile);
+                folders.put(normalizedFolder, loaded);
+                LOGGER.debug("Loaded {} migration steps of '{}' from '{}'.", loaded.steps().size(), normalizedFolder, cacheFile);
+                return loaded.steps();
+            }
+        }
+
+        // modification times differ, e.g. after a checkout, the steps are loaded again if the contents differ
+        String contentHash = hash(stepFiles);
+        List<MigrationStep> steps;
+        if (loaded != null && loaded.contentHash().equals(contentHash))
+        {
+            steps = loaded.steps();
+        }
+        else
+        {
+            LOGGER.info("Loading migration steps of '{}'.", normalizedFolder);
+            steps = new MigrationStepFolder(stepFiles).getSteps();
+            steps.forEach(MigrationStep::validate);
+        }
+        LoadedFolder result = new LoadedFolder(stamps, contentHash, steps);
+        folders.put(normalizedFolder, result);
+        write(cacheFile, result);
+        prune();
+        return steps;
+    }
+
+    /**
+     * @return the cache file of a folder, identified by its path and the format of the cached data
+     */
+    private Path getCacheFile(Path folder)
+    {
+        String key = hash(digest -> digest.update((FORMAT_VERSION + ":" + folder).getBytes(StandardCharsets.UTF_8)));
+        return cacheDir.resolve(key + CACHE_FILE_EXTENSION);
+    }
+
+    private static List<FileStamp> stamp(List<Path> stepFiles) throws IOException
+    {
+        List<FileStamp> result = new ArrayList<>();
+        for (Path stepFile : stepFiles)
+        {
+            result.add(new FileStamp(stepFile.getFileName().toString(), Files.getLastModifiedTime(stepFile).toMillis(),
+                            Files.size(stepFile)));
+        }
+        return result;
+    }
+
+    private static String hash(List<Path> stepFiles)
+    {
+        return hash(digest -> {
+            for (Path stepFile : stepFiles)
+            {
+                digest.update((byte) 0);
+                digest.update(stepFile.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try
+                {
+                    digest.update(Files.readAllBytes(stepFile));
+                }
+                catch(IOException e)
+                {
+                    throw new UncheckedIOException("Can't read migration step '" + stepFile + "'", e);
+                }
+            }
+        });
+    }
+
+    private static String hash(Consumer<MessageDigest> content)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            content.accept(digest);
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * @return the cached steps, {@code null} if the cache file can't be read
+     */
+    private static LoadedFolder read(Path cacheFile, Path folder)
+    {
+        try (InputStream in = Files.newInputStream(cacheFile); ObjectInputStream objects = new ObjectInputStream(in))
+        {
+            objects.setObjectInputFilter(CACHE_FILTER);
+            CachedFolder cachedFolder = (CachedFolder) objects.readObject();
+            List<MigrationStep> steps = new ArrayList<>();
+            for (CachedStep cachedStep : cachedFolder.steps())
+            {
+                steps.add(MigrationStep.valueOf(folder.resolve(cachedStep.fileName()), cachedStep.description()));
+            }
+            return new LoadedFolder(cachedFolder.stamps(), cachedFolder.contentHash(), steps);
+        }
+        catch(IOException | ClassNotFoundException | ClassCastException e)
+        {
+            LOGGER.warn("Can't read cached migration steps from '{}', the steps are loaded again.", cacheFile, e);
+            return null;
+        }
+    }
+
+    private static void write(Path cacheFile, LoadedFolder loaded)
+    {
+        List<CachedStep> cachedSteps = new ArrayList<>();
+        for (MigrationStep step : loaded.steps())
+        {
+            cachedSteps.add(new CachedStep(step.getPath().getFileName().toString(), step.getDescription()));
+        }
+        try
+        {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile); ObjectOutputStream objects = new ObjectOutputStream(out))
+            {
+                objects.writeObject(new CachedFolder(loaded.stamps(), loaded.contentHash(), cachedSteps));
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e)
+        {
+            LOGGER.warn("Can't cache migration steps in '{}'.", cacheFile, e);
+        }
+    }
+
+    /**
+     * Marks a cache file as used, so it isn't pruned.
+     */
+    private static void touch(Path cacheFile)
+    {
+        try
+        {
+            Files.setLastModifiedTime(cacheFile, FileTime.from(Instant.now()));
+        }
+        catch(IOException e)
+        {
+            LOGGER.debug("Can't mark cache file '{}' as used.", cacheFile, e);
+        }
+    }
+
+    /**
+     * Deletes the cache files not used for {@link #MAX_AGE}, e.g. of deleted or moved step folders.
+     */
+    private void prune()
+    {
+        FileTime oldest = FileTime.from(Instant.now().minus(MAX_AGE));
+        try (Stream<Path> files = Files.list(cacheDir))
+        {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(CACHE_FILE_EXTENSION)).toList())
+            {
+                if (Files.getLastModifiedTime(file).compareTo(oldest) < 0)
+                {
+                    LOGGER.debug("Deleting unused cache file '{}'.", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            LOGGER.warn("Can't prune cached migration steps in '{}'.", cacheDir, e);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.intershop.customization.migration.common;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.Optional;
 
 import com.intershop.customization.migration.utils.FileUtils;
 import io.github.classgraph.ClassGraph;
@@ -41,6 +48,11 @@ public class MigrationStepFolder
         return new MigrationStepFolder(paths);
     }
 
+    /**
+     * Index of the step resources bundled with the migration tool, generated at build time.
+     */
+    static final String INDEX_RESOURCE = "META-INF/icm-migration/step-resources.idx";
+
     private final List<Path> steps;
 
     public MigrationStepFolder(List<Path> steps)
@@ -58,11 +70,38 @@ public class MigrationStepFolder
         return getURIs(pkg, ".yml");
     }
 
+    /**
+     * Returns the resources of a package and its subpackages. The resources bundled with the migration tool are
+     * looked up in the {@link #INDEX_RESOURCE index} generated at build time, other resources on the class path
+     * (e.g. externally supplied step folders) are found by scanning the class path.
+     *
+     * @param pkg the package containing the resources
+     * @param extension the extension of the resources
+     * @return the URIs of the resources
+     */
     static List<URI> getURIs(String pkg, String extension)
     {
+        return getURIs(pkg, extension, MigrationStepFolder.class.getClassLoader());
+    }
+
+    /**
+     * @param pkg the package containing the resources
+     * @param extension the extension of the resources
+     * @param classLoader class loader of the indexes and the indexed resources
+     * @return the URIs of the resources
+     * @see #getURIs(String, String)
+     */
+    static List<URI> getURIs(String pkg, String extension, ClassLoader classLoader)
+    {
+        Optional<List<URI>> indexed = getIndexedURIs(pkg, extension, classLoader);
+        if (indexed.isPresent())
+        {
+            LoggerFactory.getLogger(MigrationStepFolder.class).debug("found indexed resources {}", indexed.get());
+            return indexed.get();
+        }
+
         List<URI> result = new ArrayList<>();
         try (ScanResult scanResult = new ClassGraph()// .verbose() // Log to stderr
-                                                     .enableAllInfo() // Scan classes, methods, fields, annotations
                                                      .acceptPackages(pkg) // Scan com.xyz and subpackages (omit to
                                                                           // scan all packages)
                                                      .scan())
@@ -77,4 +116,46 @@ public class MigrationStepFolder
         LoggerFactory.getLogger(MigrationStepFolder.class).debug("found resources {}", result);
         return result;
     }
+
+    /**
+     * Looks up resources in the indexes generated at build time, one resource path per line.
+     *
+     * @param pkg the package containing the resources
+     * @param extension the extension of the resources
+     * @return the URIs of the resources, empty if no index contains resources of the package
+     */
+    static Optional<List<URI>> getIndexedURIs(String pkg, String extension)
+    {
+        return getIndexedURIs(pkg, extension, MigrationStepFolder.class.getClassLoader());
+    }
+
+    private static Optional<List<URI>> getIndexedURIs(String pkg, String extension, ClassLoader classLoader)
+    {
+        String prefix = pkg.replace('.', '/') + "/";
+        List<URI> result = new ArrayList<>();
+        try
+        {
+            Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+            while (indexes.hasMoreElements())
+            {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8)))
+                {
+                    for (String resource : reader.lines().filter(l -> l.startsWith(prefix) && l.endsWith(extension)).toList())
+                    {
+                        URL url = classLoader.getResource(resource);
+                        if (url != null)
+                        {
+                            result.add(url.toURI());
+                        }
+                    }
+                }
+            }
+        }
+        catch(IOException | URISyntaxException e)
+        {
+            LoggerFactory.getLogger(MigrationStepFolder.class).warn("Can't read index of resources, the class path is scanned.", e);
+            return Optional.empty();
+        }
+        return result.isEmpty() ? Optional.empty() : Optional.of(result);
+    }
 }
@@ -0,0 +1,224 @@
+package com.intershop.customization.migration.common;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
+
+/**
+ * Serializes recorded operations as single line JSON objects (NDJSON), e.g.
+ * <pre>
+ * {"project":"app_a","type":"MOVE","source":"app_a/javasource","target":"app_a/src/main/java","status":"SUCCESS","message":null}
+ * </pre>
+ * Aggregate operations additionally contain the number of files and bytes, e.g. {@code "files":3200,"bytes":5242880}.
+ * The format is used to transfer operations between processes and to store them in files.
+ */
+public final class OperationCodec
+{
+    private static final String PROJECT = "project";
+    private static final String TYPE = "type";
+    private static final String SOURCE = "source";
+    private static final String TARGET = "target";
+    private static final String STATUS = "status";
+    private static final String MESSAGE = "message";
+    private static final String FILES = "files";
+    private static final String BYTES = "bytes";
+
+    private OperationCodec() { }
+
+    /**
+     * Operation together with the project it was recorded for.
+     *
+     * @param projectName the project or cartridge name
+     * @param operation the operation
+     */
+    public record ProjectOperation(String projectName, Operation operation) { }
+
+    /**
+     * Encodes an operation as JSON object without line breaks.
+     *
+     * @param projectName the project or cartridge name
+     * @param operation the operation
+     * @return the JSON representation
+     */
+    public static String encode(String projectName, Operation operation)
+    {
+        StringBuilder json = new StringBuilder("{");
+        appendField(json, PROJECT, projectName).append(',');
+        appendField(json, TYPE, operation.type().name()).append(',');
+        appendField(json, SOURCE, operation.source() != null ? operation.source().toString() : null).append(',');
+        appendField(json, TARGET, operation.target() != null ? operation.target().toString() : null).append(',');
+        appendField(json, STATUS, operation.status().name()).append(',');
+        appendField(json, MESSAGE, operation.message());
+        if (operation.isAggregate())
+        {
+            json.append(',');
+            appendString(json, FILES).append(':').append(operation.fileCount()).append(',');
+            appendString(json, BYTES).append(':').append(operation.byteCount());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Decodes an operation encoded by {@link #encode(String, Operation)}.
+     *
+     * @param json the JSON representation
+     * @return the operation together with its project
+     * @throws IllegalArgumentException if the JSON can't be decoded
+     */
+    public static ProjectOperation decode(String json)
+    {
+        try
+        {
+            Map<String, String> fields = parseObject(json.trim());
+            String source = fields.get(SOURCE);
+            String target = fields.get(TARGET);
+            Operation operation = new Operation(OperationType.valueOf(fields.get(TYPE)),
+                            source != null ? Path.of(source) : null, target != null ? Path.of(target) : null,
+                            OperationStatus.valueOf(fields.get(STATUS)), fields.get(MESSAGE),
+                            parseLong(fields.get(FILES)), parseLong(fields.get(BYTES)));
+            return new ProjectOperation(fields.get(PROJECT), operation);
+        }
+        catch(IndexOutOfBoundsException | NullPointerException e)
+        {
+            throw new IllegalArgumentException("Incomplete operation: " + json, e);
+        }
+    }
+
+    private static long parseLong(String value)
+    {
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    private static StringBuilder appendField(StringBuilder json, String name, String value)
+    {
+        appendString(json, name).append(':');
+        return value != null ? appendString(json, value) : json.append("null");
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default ->
+                {
+                    if (c < 0x20)
+                    {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    // parses a flat JSON object with string, integer or null values
+    private static Map<String, String> parseObject(String json)
+    {
+        if (!json.startsWith("{") || !json.endsWith("}"))
+        {
+            throw new IllegalArgumentException("Not a JSON object: " + json);
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = { skipWhitespace(json, 1) };
+        while (json.charAt(pos[0]) != '}')
+        {
+            String name = parseString(json, pos);
+            pos[0] = skipWhitespace(json, pos[0]);
+            expect(json, pos[0]++, ':');
+            pos[0] = skipWhitespace(json, pos[0]);
+            String value;
+            if (json.startsWith("null", pos[0]))
+            {
+                value = null;
+                pos[0] += 4;
+            }
+            else if (json.charAt(pos[0]) == '-' || Character.isDigit(json.charAt(pos[0])))
+            {
+                int start = pos[0]++;
+                while (Character.isDigit(json.charAt(pos[0])))
+                {
+                    pos[0]++;
+                }
+                value = json.substring(start, pos[0]);
+            }
+            else
+            {
+                value = parseString(json, pos);
+            }
+            fields.put(name, value);
+            pos[0] = skipWhitespace(json, pos[0]);
+            if (json.charAt(pos[0]) == ',')
+            {
+                pos[0] = skipWhitespace(json, pos[0] + 1);
+            }
+        }
+        return fields;
+    }
+
+    private static String parseString(String json, int[] pos)
+    {
+        expect(json, pos[0]++, '"');
+        StringBuilder value = new StringBuilder();
+        while (json.charAt(pos[0]) != '"')
+        {
+            char c = json.charAt(pos[0]++);
+            if (c != '\\')
+            {
+                value.append(c);
+                continue;
+            }
+            char escaped = json.charAt(pos[0]++);
+            switch (escaped)
+            {
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' ->
+                {
+                    value.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+        pos[0]++;
+        return value.toString();
+    }
+
+    private static int skipWhitespace(String json, int pos)
+    {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos)))
+        {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static void expect(String json, int pos, char expected)
+    {
+        if (pos >= json.length() || json.charAt(pos) != expected)
+        {
+            throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos + " of " + json);
+        }
+    }
+}
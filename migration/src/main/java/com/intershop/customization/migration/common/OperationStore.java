@@ -0,0 +1,71 @@
+package com.intershop.customization.migration.common;
+
+import java.util.function.BiConsumer;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+
+/**
+ * Stores the operations recorded by a {@link MigrationContext}. Equal operations of a project are stored once.
+ * Implementations don't need to be thread-safe, the context synchronizes all calls.
+ */
+public interface OperationStore extends AutoCloseable
+{
+    /**
+     * Adds an operation.
+     *
+     * @param projectName Project or cartridge name
+     * @param operation the operation to add
+     * @return {@code true} if the operation was added, {@code false} if an equal operation was added before
+     */
+    boolean add(String projectName, Operation operation);
+
+    /**
+     * Passes all stored operations to a consumer.
+     *
+     * @param consumer consumer of the project or cartridge name and the operation
+     */
+    void forEach(BiConsumer<String, Operation> consumer);
+
+    /**
+     * Passes the operations listed in the summary report to a consumer, see {@link #isListed(Operation)}. The default
+     * passes all of them, a store may pass a bounded sample.
+     *
+     * @param consumer consumer of the project or cartridge name and the operation
+     */
+    default void forEachListed(BiConsumer<String, Operation> consumer)
+    {
+        forEach((projectName, operation) -> {
+            if (isListed(operation))
+            {
+                consumer.accept(projectName, operation);
+            }
+        });
+    }
+
+    /**
+     * Writes operations added before, e.g. at the end of a migration step. The default does nothing.
+     */
+    default void flush()
+    {
+    }
+
+    /**
+     * Releases the resources of the store, e.g. a file. The listed operations stay available. The default does
+     * nothing.
+     */
+    @Override
+    default void close()
+    {
+    }
+
+    /**
+     * @param operation the operation
+     * @return {@code true} if the operation is listed in the summary report, i.e. aggregates and operations to review
+     */
+    static boolean isListed(Operation operation)
+    {
+        return operation.isAggregate() || operation.status() == OperationStatus.UNKNOWN
+                        || operation.status() == OperationStatus.WARNING || operation.status() == OperationStatus.FAILED;
+    }
+}
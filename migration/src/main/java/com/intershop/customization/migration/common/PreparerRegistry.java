@@ -0,0 +1,75 @@
+package com.intershop.customization.migration.common;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.intershop.customization.migration.environment.CreateEnvironmentExampleFiles;
+import com.intershop.customization.migration.file.ClasspathResourceFileCopier;
+import com.intershop.customization.migration.file.MoveFiles;
+import com.intershop.customization.migration.file.MoveFilteredFolder;
+import com.intershop.customization.migration.file.MoveFolder;
+import com.intershop.customization.migration.file.RemoveFiles;
+import com.intershop.customization.migration.gradle.AddSiteContentPreparer;
+import com.intershop.customization.migration.gradle.ConvertBuildGradle;
+import com.intershop.customization.migration.gradle.ConvertToCartridgeDependency;
+import com.intershop.customization.migration.gradle.ConvertToKotlin;
+import com.intershop.customization.migration.gradle.MigrateVersionFiles;
+import com.intershop.customization.migration.gradle.RemoveAssembly;
+import com.intershop.customization.migration.gradle.RemovedDependency;
+import com.intershop.customization.migration.gradle.RenamedDependency;
+import com.intershop.customization.migration.gradle.RenamedPackages;
+import com.intershop.customization.migration.pfconfigurationfs.MigrateConfigResources;
+
+/**
+ * Creates the built-in migration preparers by their class name without reflection, so the migration tool can be
+ * compiled to a native executable. Preparers of other projects are instantiated reflectively by
+ * {@link MigrationStep#getMigrator()}.
+ * <p>
+ * A new built-in preparer has to be added here, otherwise it is instantiated reflectively as well.
+ */
+public final class PreparerRegistry
+{
+    private static final Map<String, Supplier<MigrationPreparer>> BUILT_IN_PREPARERS = Map.ofEntries(
+                    entry(CreateEnvironmentExampleFiles.class, CreateEnvironmentExampleFiles::new),
+                    entry(ClasspathResourceFileCopier.class, ClasspathResourceFileCopier::new),
+                    entry(MoveFiles.class, MoveFiles::new),
+                    entry(MoveFilteredFolder.class, MoveFilteredFolder::new),
+                    entry(MoveFolder.class, MoveFolder::new),
+                    entry(RemoveFiles.class, RemoveFiles::new),
+                    entry(AddSiteContentPreparer.class, AddSiteContentPreparer::new),
+                    entry(ConvertBuildGradle.class, ConvertBuildGradle::new),
+                    entry(ConvertToCartridgeDependency.class, ConvertToCartridgeDependency::new),
+                    entry(ConvertToKotlin.class, ConvertToKotlin::new),
+                    entry(MigrateVersionFiles.class, MigrateVersionFiles::new),
+                    entry(RemoveAssembly.class, RemoveAssembly::new),
+                    entry(RemovedDependency.class, RemovedDependency::new),
+                    entry(RenamedDependency.class, RenamedDependency::new),
+                    entry(RenamedPackages.class, RenamedPackages::new),
+                    entry(MigrateConfigResources.class, MigrateConfigResources::new));
+
+    private PreparerRegistry() { }
+
+    private static <T extends MigrationPreparer> Map.Entry<String, Supplier<MigrationPreparer>> entry(Class<T> clazz, Supplier<T> factory)
+    {
+        return Map.entry(clazz.getName(), factory::get);
+    }
+
+    /**
+     * @param className class name of a preparer, as given by {@code migrator} in the step description
+     * @return the factory of the built-in preparer, empty if the preparer isn't built in
+     */
+    public static Optional<Supplier<MigrationPreparer>> getFactory(String className)
+    {
+        return Optional.ofNullable(BUILT_IN_PREPARERS.get(className));
+    }
+
+    /**
+     * @return class names of the built-in preparers
+     */
+    public static Set<String> getBuiltInPreparers()
+    {
+        return BUILT_IN_PREPARERS.keySet();
+    }
+}
@@ -0,0 +1,126 @@
+package com.intershop.customization.migration.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracts classpath resources into files, e.g. scripts handed over to external processes or templates. Each resource
+ * is extracted once into a folder named by the hash of its content and the file keeps the name of the resource, so
+ * the same file is reused within a migration and by later migrations, as long as the resource is unchanged. External
+ * tools caching by file path (e.g. the compiled-script cache of the Kotlin script host) can reuse their caches, too.
+ * <p>
+ * Cached files must not be modified, they are shared by all migrations of the user.
+ */
+public final class ResourceCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceCache.class);
+
+    private static final Map<String, Path> EXTRACTED = new ConcurrentHashMap<>();
+
+    private ResourceCache() { }
+
+    /**
+     * @return the default cache folder {@code .icm-migration/resources} in the home directory of the user
+     */
+    public static Path getDefaultCacheDir()
+    {
+        return Path.of(System.getProperty("user.home"), ".icm-migration", "resources");
+    }
+
+    /**
+     * Returns a file containing a classpath resource, extracted into the default cache folder.
+     *
+     * @param resourceName name of the classpath resource, e.g. {@code kotlin/gradlekotlinconverter.kts}
+     * @return the file containing the resource
+     * @throws NoSuchFileException if the resource isn't found in the classpath
+     * @throws IOException if the resource can't be read or extracted
+     * @see #getResource(String, Path)
+     */
+    public static Path getResource(String resourceName) throws IOException
+    {
+        return getResource(resourceName, getDefaultCacheDir());
+    }
+
+    /**
+     * Returns a file containing a classpath resource. The resource is read and extracted at most once per cache
+     * folder and migration; a file extracted by an earlier migration is reused if its content is unchanged.
+     *
+     * @param resourceName name of the classpath resource, e.g. {@code kotlin/gradlekotlinconverter.kts}
+     * @param cacheDir folder containing the extracted resources
+     * @return the file containing the resource
+     * @throws NoSuchFileException if the resource isn't found in the classpath
+     * @throws IOException if the resource can't be read or extracted
+     */
+    public static Path getResource(String resourceName, Path cacheDir) throws IOException
+    {
+        String key = cacheDir.toAbsolutePath() + "|" + resourceName;
+        Path cached = EXTRACTED.get(key);
+        if (cached != null && Files.isRegularFile(cached))
+        {
+            return cached;
+        }
+        // concurrent extractions of the same resource write the same content, the last move wins
+        cached = extract(resourceName, cacheDir);
+        EXTRACTED.put(key, cached);
+        return cached;
+    }
+
+    private static Path extract(String resourceName, Path cacheDir) throws IOException
+    {
+        byte[] content;
+        try (InputStream in = ResourceCache.class.getClassLoader().getResourceAsStream(resourceName))
+        {
+            if (in == null)
+            {
+                throw new NoSuchFileException(resourceName, null, "Resource not found in classpath.");
+            }
+            content = in.readAllBytes();
+        }
+
+        String fileName = resourceName.substring(resourceName.lastIndexOf('/') + 1);
+        Path file = cacheDir.resolve(hash(content)).resolve(fileName);
+        if (Files.isRegularFile(file) && Files.size(file) == content.length)
+        {
+            LOGGER.debug("Reusing resource '{}' extracted to '{}'.", resourceName, file);
+            return file;
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tempFile = Files.createTempFile(file.getParent(), fileName, ".tmp");
+        try
+        {
+            Files.write(tempFile, content);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile);
+        }
+        LOGGER.debug("Extracted resource '{}' to '{}'.", resourceName, file);
+        return file;
+    }
+
+    private static String hash(byte[] content)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
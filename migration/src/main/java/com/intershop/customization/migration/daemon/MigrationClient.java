@@ -0,0 +1,118 @@
+package com.intershop.customization.migration.daemon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Thin client submitting a migration job to a running {@link MigrationDaemon}. The output of the job is streamed to
+ * the standard output, the exit status of the client is the exit status of the job.
+ * <p>
+ * The client depends on the JDK only, so it starts quickly, e.g.
+ * <pre>
+ * java -cp migration/build/classes/java/main com.intershop.customization.migration.daemon.MigrationClient \
+ *      &lt;socket&gt; projects &lt;path_to_project&gt; &lt;path_to_migration_steps&gt; [options]
+ * </pre>
+ * Protocol: the client sends the arguments of the job, one per line, followed by an empty line. The daemon answers
+ * with the output of the job and finishes with a line consisting of {@link #EXIT_MARKER} and the exit status.
+ */
+public class MigrationClient
+{
+    public static final String EXIT_MARKER = "\u0001exit ";
+    public static final String TASK_SHUTDOWN = "shutdown";
+
+    private static final int POS_SOCKET = 0;
+    private static final int POS_JOB_PATH = 1;
+    private static final int POS_JOB_STEPS = 2;
+    private static final int STATUS_NO_RESPONSE = 4;
+
+    private MigrationClient() { }
+
+    /**
+     * @param args the socket of the daemon, followed by the arguments of the job as accepted by
+     *             {@link com.intershop.customization.migration.Migrator#main(String[])}, or "shutdown" to stop the
+     *             daemon
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < POS_SOCKET + 2)
+        {
+            System.err.println("Usage: MigrationClient <socket> project|projects|batch|shutdown [arguments]");
+            System.exit(1);
+        }
+
+        try
+        {
+            String[] jobArgs = Arrays.copyOfRange(args, POS_SOCKET + 1, args.length);
+            // the daemon resolves relative paths against its own working directory
+            if (jobArgs.length > POS_JOB_PATH)
+            {
+                jobArgs[POS_JOB_PATH] = Path.of(jobArgs[POS_JOB_PATH]).toAbsolutePath().toString();
+            }
+            if (jobArgs.length > POS_JOB_STEPS)
+            {
+                // several step folders are separated by the path separator
+                jobArgs[POS_JOB_STEPS] = Arrays.stream(jobArgs[POS_JOB_STEPS].split(File.pathSeparator))
+                                               .map(f -> Path.of(f).toAbsolutePath().toString())
+                                               .collect(Collectors.joining(File.pathSeparator));
+            }
+            int status = submit(Path.of(args[POS_SOCKET]), jobArgs, System.out::println);
+            System.exit(status);
+        }
+        catch(IOException e)
+        {
+            System.err.println("Can't submit job to migration daemon at '" + args[POS_SOCKET] + "': " + e.getMessage());
+            System.exit(STATUS_NO_RESPONSE);
+        }
+    }
+
+    /**
+     * Submits a job to the daemon and waits until it is finished.
+     *
+     * @param socket the socket of the daemon
+     * @param jobArgs the arguments of the job
+     * @param output receives the output of the job line by line
+     * @return the exit status of the job
+     * @throws IOException if the daemon can't be reached or the connection is closed before the job is finished
+     */
+    public static int submit(Path socket, String[] jobArgs, Consumer<String> output) throws IOException
+    {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX))
+        {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+
+            OutputStream out = Channels.newOutputStream(channel);
+            StringBuilder request = new StringBuilder();
+            for (String arg : jobArgs)
+            {
+                request.append(arg).append('\n');
+            }
+            request.append('\n');
+            out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null)
+            {
+                if (line.startsWith(EXIT_MARKER))
+                {
+                    return Integer.parseInt(line.substring(EXIT_MARKER.length()).trim());
+                }
+                output.accept(line);
+            }
+            throw new IOException("Connection closed by migration daemon before the job was finished.");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.intershop.customization.migration.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.intershop.customization.migration.Migrator;
+import com.intershop.customization.migration.common.MigrationStepCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resident migration process accepting jobs from {@link MigrationClient} over a Unix domain socket. Loaded migration
+ * steps and warmed up code stay in memory between jobs, which saves the JVM startup and class loading on every run.
+ * <p>
+ * Jobs are executed one after another. While a job is executed, the standard output and error streams, and therefore
+ * the console log, are redirected to the client.
+ */
+public class MigrationDaemon
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationDaemon.class);
+
+    private static final int POS_SOCKET = 0;
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final Path socket;
+    private final MigrationStepCache stepCache;
+
+    /**
+     * @param socket path of the Unix domain socket to listen on
+     */
+    public MigrationDaemon(Path socket)
+    {
+        this(socket, new MigrationStepCache(MigrationStepCache.getDefaultCacheDir()));
+    }
+
+    /**
+     * @param socket path of the Unix domain socket to listen on
+     * @param stepCache cache of the migration steps shared by all jobs
+     */
+    MigrationDaemon(Path socket, MigrationStepCache stepCache)
+    {
+        this.socket = socket;
+        this.stepCache = stepCache;
+    }
+
+    /**
+     * @param args the path of the Unix domain socket
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < POS_SOCKET + 1)
+        {
+            LOGGER.error("Missing parameter '{}'.", args.length);
+            System.exit(1);
+        }
+
+        try
+        {
+            new MigrationDaemon(Path.of(args[POS_SOCKET])).serve();
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("Migration daemon failed", e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Accepts and executes jobs until a shutdown job is received.
+     *
+     * @throws IOException if the socket can't be opened
+     */
+    public void serve() throws IOException
+    {
+        prepareSocketDirectory();
+        deleteStaleSocket();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+        {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            LOGGER.info("Migration daemon is listening on '{}'.", socket);
+
+            boolean running = true;
+            while (running)
+            {
+                try (SocketChannel client = server.accept())
+                {
+                    running = handle(client);
+                }
+                catch(IOException e)
+                {
+                    LOGGER.warn("Communication with migration client failed: {}", e.getMessage());
+                }
+            }
+            LOGGER.info("Migration daemon stopped.");
+        }
+        finally
+        {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /**
+     * Reads a job from the client, executes it and sends the exit status.
+     *
+     * @param client the connected client
+     * @return {@code false} if the daemon should stop, {@code true} otherwise
+     * @throws IOException if reading the job or writing the result fails
+     */
+    private boolean handle(SocketChannel client) throws IOException
+    {
+        BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+        List<String> args = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty())
+        {
+            args.add(line);
+        }
+
+        // a client probing whether the daemon is running
+        if (args.isEmpty())
+        {
+            return true;
+        }
+
+        OutputStream out = Channels.newOutputStream(client);
+        if (args.size() == 1 && MigrationClient.TASK_SHUTDOWN.equals(args.get(0)))
+        {
+            LOGGER.info("Shutdown requested.");
+            writeExitStatus(out, 0);
+            return false;
+        }
+
+        LOGGER.info("Executing job {}.", args);
+        long start = System.nanoTime();
+        int status = execute(args.toArray(String[]::new), out);
+        LOGGER.info("Job finished with status {} after {} ms.", status, (System.nanoTime() - start) / 1_000_000);
+        writeExitStatus(out, status);
+        return true;
+    }
+
+    private int execute(String[] args, OutputStream out)
+    {
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        PrintStream jobOut = new PrintStream(out, true, StandardCharsets.UTF_8);
+        System.setOut(jobOut);
+        System.setErr(jobOut);
+        try
+        {
+            return Migrator.run(args, folder -> stepCache.getSteps(folder.toPath()));
+        }
+        finally
+        {
+            jobOut.flush();
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+    }
+
+    private static void writeExitStatus(OutputStream out, int status) throws IOException
+    {
+        out.write((MigrationClient.EXIT_MARKER + status + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Creates the directory of the socket accessible by the owner only, so other users can't connect to the socket.
+     *
+     * @throws IOException if the directory can't be created or is accessible by other users
+     */
+    private void prepareSocketDirectory() throws IOException
+    {
+        Path directory = socket.toAbsolutePath().getParent();
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix"))
+        {
+            Files.createDirectories(directory);
+            return;
+        }
+        if (!Files.exists(directory))
+        {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+        if (!OWNER_ONLY.containsAll(permissions))
+        {
+            throw new IOException("Directory '" + directory + "' of the socket is accessible by other users ("
+                            + PosixFilePermissions.toString(permissions) + "), use a directory accessible by the owner only.");
+        }
+    }
+
+    /**
+     * Deletes a socket file left by a killed daemon, which blocks the bind.
+     *
+     * @throws IOException if another daemon is listening on the socket
+     */
+    private void deleteStaleSocket() throws IOException
+    {
+        if (!Files.exists(socket))
+        {
+            return;
+        }
+        try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socket)))
+        {
+            throw new IOException("Another migration daemon is listening on '" + socket + "'.");
+        }
+        catch(SocketException e)
+        {
+            // nobody is listening, e.g. the connection is refused
+            LOGGER.info("Deleting stale socket '{}'.", socket);
+            Files.deleteIfExists(socket);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import com.intershop.customization.migration.common.MigrationContext;
 import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.ResourceCache;
 import com.intershop.customization.migration.utils.FileUtils;
 
 /**
@@ -60,6 +61,8 @@ public class CreateEnvironmentExampleFiles implements MigrationPreparer
     public static final String CLEAN_BAT                        = "clean.bat";
     public static final String CLEAN_SH_TEMPLATE                = "clean.sh.template";
     public static final String CLEAN_SH                         = "clean.sh";
+    public static final String TEMPLATES_RESOURCE_DIR           = "environment/";  // classpath folder containing the template files
+
     public static final String TEMPLATE_PLACEHOLDER_ROOT_PROJECT_NAME      = "<rootProject.name in settings.gradle.kts>";
     public static final String TEMPLATE_PLACEHOLDER_DOCKER_REGISTRY        = "<ishprjxxacr>";
     public static final String TEMPLATE_PLACEHOLDER_ADO_ORGANIZATION       = "<adoOrganizationName>";
@@ -271,6 +274,25 @@ public class CreateEnvironmentExampleFiles implements MigrationPreparer
         return fileTemplatesDir;
     }
 
+    /**
+     * Returns a template file. The templates are extracted once from the classpath into the {@link ResourceCache}, the
+     * directory containing the template files is used if a template isn't found in the classpath.
+     * @param templateName file name of the template
+     * @return the template file, which may not exist
+     */
+    protected File getTemplate(String templateName)
+    {
+        try
+        {
+            return ResourceCache.getResource(TEMPLATES_RESOURCE_DIR + templateName).toFile();
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Template '{}' not available in classpath: {}", templateName, e.getMessage());
+            return new File(this.fileTemplatesDir.toFile(), templateName);
+        }
+    }
+
     /**
      * Retrieves the value associated with a given key from a properties or KTS file.
      * The method supports two formats:
@@ -354,7 +376,7 @@ public class CreateEnvironmentExampleFiles implements MigrationPreparer
      */
     protected void generateExampleFile(String exampleFileTemplateName, Path exampleFile, String exampleFileName)
     {
-        File exampleTemplate = new File(this.fileTemplatesDir.toFile(), exampleFileTemplateName);
+        File exampleTemplate = getTemplate(exampleFileTemplateName);
         if (exampleTemplate.exists() && exampleTemplate.isFile())
         {
             if (exampleFile == null)
@@ -384,7 +406,7 @@ public class CreateEnvironmentExampleFiles implements MigrationPreparer
      */
     protected void generateCleanFile(String cleanFileTemplateName, Path cleanFile, String cleanFileName)
     {
-        File cleanTemplate = new File(this.fileTemplatesDir.toFile(), cleanFileTemplateName);
+        File cleanTemplate = getTemplate(cleanFileTemplateName);
         if (cleanTemplate.exists() && cleanTemplate.isFile())
         {
             if (cleanFile == null)
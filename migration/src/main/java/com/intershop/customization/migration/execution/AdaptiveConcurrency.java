@@ -0,0 +1,277 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of cartridges migrated at the same time and adapts the limit to the load of the migration
+ * (additive increase, multiplicative decrease). The load is sampled periodically:
+ * <ul>
+ *     <li>heap usage (after the last garbage collection, otherwise of the {@link MemoryMXBean}) and usage of the file descriptors of the process above their
+ *     thresholds halve the limit</li>
+ *     <li>a drop of the throughput (processed files per second) after the limit was increased reduces the limit by a
+ *     quarter, e.g. if concurrent migrations compete for slow storage</li>
+ *     <li>otherwise, the limit is increased by one while all slots are in use, up to the maximum</li>
+ * </ul>
+ * Each adjustment is logged together with the sampled load, so the defaults can be tuned.
+ */
+public class AdaptiveConcurrency implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    public static final long DEFAULT_SAMPLE_INTERVAL_MILLIS = 2000;
+    static final double HEAP_THRESHOLD = 0.85;
+    static final double FILE_DESCRIPTOR_THRESHOLD = 0.8;
+    static final double THROUGHPUT_DROP = 0.8;
+    private static final int INITIAL_LIMIT = 2;
+
+    /**
+     * Load of the migration sampled at one point in time.
+     *
+     * @param heapUsage used heap in relation to the maximum heap
+     * @param fileDescriptorUsage open file descriptors in relation to the maximum, 0 if unknown
+     * @param filesPerSecond files processed per second since the previous sample
+     */
+    record Load(double heapUsage, double fileDescriptorUsage, double filesPerSecond) { }
+
+    private final int maxLimit;
+    private final LongSupplier processedFiles;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final ScheduledExecutorService sampler;
+
+    private int limit;
+    private int inFlight;
+    private int waiting;
+
+    // state of the previous sample, only accessed by the sampler
+    private long lastFiles;
+    private long lastNanos = System.nanoTime();
+    private double throughputBeforeIncrease = -1;
+
+    /**
+     * Creates a controller and starts sampling the load.
+     *
+     * @param maxLimit maximum number of concurrent cartridge migrations
+     * @param processedFiles number of files processed so far
+     * @param sampleIntervalMillis interval between two load samples, 0 to disable sampling (the limit is adjusted by
+     *            calling {@link #adjust(Load)})
+     */
+    public AdaptiveConcurrency(int maxLimit, LongSupplier processedFiles, long sampleIntervalMillis)
+    {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.min(INITIAL_LIMIT, this.maxLimit);
+        this.processedFiles = processedFiles;
+        this.lastFiles = processedFiles.getAsLong();
+        if (sampleIntervalMillis > 0)
+        {
+            sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "migration-concurrency");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleAtFixedRate(() -> adjust(sample()), sampleIntervalMillis, sampleIntervalMillis,
+                            TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            sampler = null;
+        }
+        LOGGER.info("Adaptive concurrency starts with {} of at most {} concurrent cartridge migrations.", limit, this.maxLimit);
+    }
+
+    /**
+     * Executes a task as soon as the number of running tasks is below the current limit.
+     *
+     * @param task the task to execute
+     */
+    public void run(Runnable task)
+    {
+        acquire();
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            release();
+        }
+    }
+
+    private void acquire()
+    {
+        lock.lock();
+        try
+        {
+            waiting++;
+            while (inFlight >= limit)
+            {
+                permitReleased.await();
+            }
+            inFlight++;
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a cartridge migration slot", e);
+        }
+        finally
+        {
+            waiting--;
+            lock.unlock();
+        }
+    }
+
+    private void release()
+    {
+        lock.lock();
+        try
+        {
+            inFlight--;
+            permitReleased.signal();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current number of concurrent cartridge migrations
+     */
+    public int getLimit()
+    {
+        lock.lock();
+        try
+        {
+            return limit;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Samples the load of the migration process.
+     *
+     * @return the current load
+     */
+    Load sample()
+    {
+        // garbage inflates the current heap usage, the usage after the last collection is used if available
+        double heapUsage = -1;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            MemoryUsage afterCollection = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (afterCollection != null && afterCollection.getMax() > 0)
+            {
+                heapUsage = Math.max(heapUsage, (double) afterCollection.getUsed() / afterCollection.getMax());
+            }
+        }
+        if (heapUsage < 0)
+        {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            heapUsage = (double) heap.getUsed() / (heap.getMax() > 0 ? heap.getMax() : heap.getCommitted());
+        }
+
+        double fileDescriptorUsage = 0;
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof UnixOperatingSystemMXBean unix && unix.getMaxFileDescriptorCount() > 0)
+        {
+            fileDescriptorUsage = (double) unix.getOpenFileDescriptorCount() / unix.getMaxFileDescriptorCount();
+        }
+
+        long files = processedFiles.getAsLong();
+        long nanos = System.nanoTime();
+        double filesPerSecond = (files - lastFiles) * 1e9 / Math.max(1, nanos - lastNanos);
+        lastFiles = files;
+        lastNanos = nanos;
+        return new Load(heapUsage, fileDescriptorUsage, filesPerSecond);
+    }
+
+    /**
+     * Adjusts the limit to the given load.
+     *
+     * @param load the sampled load
+     * @return the new limit
+     */
+    int adjust(Load load)
+    {
+        lock.lock();
+        try
+        {
+            int previous = limit;
+            String reason;
+            if (load.heapUsage() > HEAP_THRESHOLD)
+            {
+                limit = Math.max(1, limit / 2);
+                reason = "heap usage above " + percent(HEAP_THRESHOLD);
+            }
+            else if (load.fileDescriptorUsage() > FILE_DESCRIPTOR_THRESHOLD)
+            {
+                limit = Math.max(1, limit / 2);
+                reason = "file descriptor usage above " + percent(FILE_DESCRIPTOR_THRESHOLD);
+            }
+            else if (throughputBeforeIncrease > 0 && load.filesPerSecond() > 0
+                            && load.filesPerSecond() < throughputBeforeIncrease * THROUGHPUT_DROP)
+            {
+                limit = Math.max(1, limit * 3 / 4);
+                reason = "throughput dropped from " + Math.round(throughputBeforeIncrease) + " files/s";
+            }
+            else if (limit < maxLimit && (waiting > 0 || inFlight >= limit))
+            {
+                limit++;
+                reason = "all slots are in use";
+            }
+            else
+            {
+                return limit;
+            }
+
+            // a throughput drop is only attributed to the last increase
+            throughputBeforeIncrease = limit > previous ? load.filesPerSecond() : -1;
+            if (limit != previous)
+            {
+                LOGGER.info("Adjusted concurrent cartridge migrations from {} to {} ({}; heap {}, file descriptors {}, {} files/s).",
+                                previous, limit, reason, percent(load.heapUsage()), percent(load.fileDescriptorUsage()),
+                                Math.round(load.filesPerSecond()));
+                permitReleased.signalAll();
+            }
+            return limit;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private static String percent(double value)
+    {
+        return Math.round(value * 100) + "%";
+    }
+
+    @Override
+    public void close()
+    {
+        if (sampler != null)
+        {
+            sampler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the files of the next cartridge on a background thread, while the current cartridge is migrated. The read
+ * data is discarded, the prefetch only warms up the file system caches, so the migration of the next cartridge
+ * doesn't wait for slow (e.g. network mounted) storage.
+ * <p>
+ * The directory tree of the cartridge is always listed. If the step declares a {@link StepFootprint footprint}, the
+ * files matching its read patterns are read, otherwise only the build files. The amount of data read per cartridge is
+ * limited, so a huge cartridge doesn't evict the caches of the current one.
+ */
+public class CartridgePrefetcher implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartridgePrefetcher.class);
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Set<String> BUILD_FILES = Set.of("build.gradle", "build.gradle.kts");
+
+    private final long maxBytes;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "migration-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<Long> pending;
+
+    /**
+     * @param maxBytes maximum number of bytes read per cartridge
+     */
+    public CartridgePrefetcher(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Starts prefetching a cartridge. A prefetch still running for another cartridge is cancelled.
+     *
+     * @param rootProject the root project, the read patterns of the footprint are relative to it
+     * @param cartridgeDir the cartridge to prefetch
+     * @param footprint footprint of the step(s) applied to the cartridge next
+     * @return the number of bytes read, when the prefetch is finished
+     */
+    public synchronized Future<Long> prefetch(Path rootProject, File cartridgeDir, StepFootprint footprint)
+    {
+        if (pending != null)
+        {
+            pending.cancel(true);
+        }
+        pending = executor.submit(() -> read(rootProject.toAbsolutePath(), cartridgeDir.toPath().toAbsolutePath(), footprint));
+        return pending;
+    }
+
+    private long read(Path rootProject, Path cartridgeDir, StepFootprint footprint) throws IOException
+    {
+        long start = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long[] bytes = { 0 };
+        Files.walkFileTree(cartridgeDir, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                if (Thread.currentThread().isInterrupted())
+                {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (attrs.isRegularFile() && bytes[0] < maxBytes && isRead(rootProject, file, footprint))
+                {
+                    bytes[0] += read(file, buffer, maxBytes - bytes[0]);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        LOGGER.debug("Prefetched {} bytes of cartridge '{}' in {} ms.", bytes[0], cartridgeDir.getFileName(),
+                        (System.nanoTime() - start) / 1_000_000);
+        return bytes[0];
+    }
+
+    private static boolean isRead(Path rootProject, Path file, StepFootprint footprint)
+    {
+        if (!footprint.isDeclared())
+        {
+            return BUILD_FILES.contains(file.getFileName().toString());
+        }
+        String relativePath = rootProject.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+        return footprint.isRead(relativePath);
+    }
+
+    private static long read(Path file, ByteBuffer buffer, long limit) throws IOException
+    {
+        long result = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            int read;
+            do
+            {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), limit - result));
+                read = channel.read(buffer);
+                result += Math.max(read, 0);
+            }
+            while (read > 0 && result < limit && !Thread.currentThread().isInterrupted());
+        }
+        return result;
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+}
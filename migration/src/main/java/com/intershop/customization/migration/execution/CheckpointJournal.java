@@ -0,0 +1,180 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only journal of the progress of a migration. Each line records a finished unit of work:
+ * <pre>
+ * &lt;step id&gt; TAB &lt;cartridge&gt; TAB done
+ * &lt;step id&gt; TAB * TAB committed TAB &lt;commit sha&gt;
+ * </pre>
+ * The root migration of a step is recorded with the cartridge name {@value #ROOT}. Every line is synced to disk
+ * before the migration continues, so the journal survives a crash of the migration process. A migration started
+ * with {@code --resume} skips all recorded units of work and continues with the first unfinished one.
+ * <p>
+ * Migrations started without {@code --checkpoint} or {@code --resume} use a {@link #disabled() disabled} journal,
+ * which doesn't write a file.
+ */
+public class CheckpointJournal
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointJournal.class);
+
+    public static final String ROOT = "/";
+    private static final String STEP = "*";
+    private static final String STATUS_DONE = "done";
+    private static final String STATUS_COMMITTED = "committed";
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final Set<String> done = ConcurrentHashMap.newKeySet();
+    private final Set<String> committed = ConcurrentHashMap.newKeySet();
+
+    private CheckpointJournal(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * @return a journal without recorded progress, which doesn't record further progress
+     */
+    public static CheckpointJournal disabled()
+    {
+        return new CheckpointJournal(null);
+    }
+
+    /**
+     * Opens the journal stored in the given file.
+     *
+     * @param file the journal file
+     * @param resume {@code true} to load the recorded progress, {@code false} to discard it and start over
+     * @return the opened journal
+     */
+    public static CheckpointJournal open(Path file, boolean resume)
+    {
+        CheckpointJournal journal = new CheckpointJournal(file);
+        try
+        {
+            Files.createDirectories(file.getParent());
+            if (!resume)
+            {
+                Files.deleteIfExists(file);
+            }
+            else if (Files.exists(file))
+            {
+                journal.load(Files.readAllLines(file, StandardCharsets.UTF_8));
+                LOGGER.info("Resuming migration from journal '{}', {} migration steps are already committed.", file,
+                                journal.committed.size());
+            }
+            else
+            {
+                LOGGER.warn("No journal found at '{}', migration starts from the beginning.", file);
+            }
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't open migration journal '" + file + "'", e);
+        }
+        return journal;
+    }
+
+    private void load(List<String> lines)
+    {
+        for (String line : lines)
+        {
+            String[] fields = line.split(SEPARATOR, -1);
+            // an incomplete last line is left by a crash while writing, the unit of work is repeated
+            if (fields.length >= 3 && STATUS_DONE.equals(fields[2]))
+            {
+                done.add(key(fields[0], fields[1]));
+            }
+            else if (fields.length >= 4 && STATUS_COMMITTED.equals(fields[2]))
+            {
+                committed.add(fields[0]);
+            }
+        }
+    }
+
+    /**
+     * @param stepId identifier of the migration step
+     * @return {@code true} if the step was finished and its changes are committed
+     */
+    public boolean isCommitted(String stepId)
+    {
+        return committed.contains(stepId);
+    }
+
+    /**
+     * @param stepId identifier of the migration step
+     * @param cartridge name of the cartridge or {@link #ROOT} for the root migration
+     * @return {@code true} if the step was already applied to the cartridge
+     */
+    public boolean isDone(String stepId, String cartridge)
+    {
+        return committed.contains(stepId) || done.contains(key(stepId, cartridge));
+    }
+
+    /**
+     * Records that a step was applied to a cartridge.
+     *
+     * @param stepId identifier of the migration step
+     * @param cartridge name of the cartridge or {@link #ROOT} for the root migration
+     */
+    public void markDone(String stepId, String cartridge)
+    {
+        append(String.join(SEPARATOR, stepId, cartridge, STATUS_DONE));
+        done.add(key(stepId, cartridge));
+    }
+
+    /**
+     * Records that a step is finished and its changes are committed.
+     *
+     * @param stepId identifier of the migration step
+     * @param sha the SHA-1 hash of the commit, {@code null} if nothing was committed
+     */
+    public void markCommitted(String stepId, String sha)
+    {
+        append(String.join(SEPARATOR, stepId, STEP, STATUS_COMMITTED, sha != null ? sha : ""));
+        committed.add(stepId);
+    }
+
+    /**
+     * @return the journal file, {@code null} if the journal is disabled
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+    private synchronized void append(String line)
+    {
+        if (file == null)
+        {
+            return;
+        }
+        try
+        {
+            Files.writeString(file, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                            StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't write migration journal '" + file + "'", e);
+        }
+    }
+
+    private static String key(String stepId, String cartridge)
+    {
+        return stepId + SEPARATOR + cartridge;
+    }
+}
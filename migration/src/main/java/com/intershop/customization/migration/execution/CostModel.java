@@ -0,0 +1,162 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durations of previous migrations per migration step and cartridge. The durations are used to schedule the most
+ * expensive cartridges first (longest processing time first), so a few huge cartridges don't delay the end of a
+ * parallel migration step.
+ * <p>
+ * The durations are stored in a text file, one line per step and cartridge:
+ * <pre>
+ * &lt;step id&gt; TAB &lt;cartridge&gt; TAB &lt;milliseconds&gt;
+ * </pre>
+ * A duration measured in the current migration replaces the stored one.
+ */
+public class CostModel
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CostModel.class);
+
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    private CostModel(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Loads the durations stored in the given file. A missing or unreadable file results in an empty cost model.
+     *
+     * @param file the file containing the durations
+     * @return the cost model
+     */
+    public static CostModel load(Path file)
+    {
+        CostModel model = new CostModel(file);
+        if (Files.exists(file))
+        {
+            try
+            {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+                {
+                    String[] fields = line.split(SEPARATOR, -1);
+                    if (fields.length == 3)
+                    {
+                        model.durations.put(key(fields[0], fields[1]), Long.parseLong(fields[2]));
+                    }
+                }
+            }
+            catch(IOException | NumberFormatException e)
+            {
+                LOGGER.warn("Can't read migration durations from '{}', cartridges are scheduled in directory order.", file, e);
+                model.durations.clear();
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Records the duration of a migration step for a cartridge.
+     *
+     * @param stepId identifier of the migration step
+     * @param cartridge name of the cartridge
+     * @param millis duration in milliseconds
+     */
+    public void record(String stepId, String cartridge, long millis)
+    {
+        durations.put(key(stepId, cartridge), millis);
+    }
+
+    /**
+     * Estimates the cost of migrating cartridges through the given migration steps. The cost of a cartridge is the
+     * sum of its recorded durations. A cartridge without recorded durations is estimated as expensive as the most
+     * expensive known cartridge, so it is started early.
+     *
+     * @param cartridgeDirs the cartridges to estimate
+     * @param stepIds identifiers of the migration steps applied to the cartridges
+     * @return the estimated costs in milliseconds, ordered by descending cost; cartridges with equal costs keep their
+     *         order
+     */
+    public Map<File, Long> estimate(List<File> cartridgeDirs, List<String> stepIds)
+    {
+        Map<File, Long> known = new HashMap<>();
+        for (File cartridgeDir : cartridgeDirs)
+        {
+            long cost = 0;
+            for (String stepId : stepIds)
+            {
+                Long duration = durations.get(key(stepId, cartridgeDir.getName()));
+                if (duration == null)
+                {
+                    cost = -1;
+                    break;
+                }
+                cost += duration;
+            }
+            if (cost >= 0)
+            {
+                known.put(cartridgeDir, cost);
+            }
+        }
+        long unknown = known.values().stream().mapToLong(Long::longValue).max().orElse(1);
+
+        Map<File, Long> result = new LinkedHashMap<>();
+        cartridgeDirs.stream()
+                     .sorted(Comparator.comparingLong((File c) -> known.getOrDefault(c, unknown)).reversed())
+                     .forEach(c -> result.put(c, known.getOrDefault(c, unknown)));
+        return result;
+    }
+
+    /**
+     * Writes the durations to the file, they were loaded from. The file is replaced atomically, so an aborted
+     * migration doesn't leave a truncated file. Since the durations only affect the order of cartridges, a failure is
+     * logged but doesn't fail the migration.
+     */
+    public void save()
+    {
+        StringBuilder content = new StringBuilder();
+        new TreeMap<>(durations).forEach((key, millis) -> content.append(key).append(SEPARATOR).append(millis).append('\n'));
+        try
+        {
+            Files.createDirectories(file.getParent());
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e)
+        {
+            LOGGER.warn("Can't write migration durations to '{}'.", file, e);
+        }
+    }
+
+    /**
+     * @return the file containing the durations
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+    private static String key(String stepId, String cartridge)
+    {
+        return stepId + SEPARATOR + cartridge;
+    }
+}
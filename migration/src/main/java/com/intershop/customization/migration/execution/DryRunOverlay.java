@@ -0,0 +1,265 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Overlay directory for a dry run of a migration. The project is copied to a temporary directory, the migration is
+ * applied to the copy and the differences to the untouched project are reported as unified diff.
+ * <p>
+ * Preparers access the file system in many ways (NIO, {@link java.io.File}, external processes), so the overlay is a
+ * real directory instead of an interception of single file operations. Its content lives on disk, only the two
+ * versions of one file are held in memory while the diff is created. Git metadata and Gradle caches are not copied.
+ * <p>
+ * Only the files matching the combined {@link StepFootprint footprint} of the migration steps are copied, so a dry run
+ * of a few steps doesn't copy the whole project. The directory tree, the files of the root project and the top level
+ * files of the cartridges (e.g. their build files) are always copied. Files outside of the footprint are neither
+ * copied nor compared, a step accessing undeclared paths sees an incomplete copy. If a step doesn't declare its
+ * footprint, the whole project is copied.
+ */
+public class DryRunOverlay implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DryRunOverlay.class);
+
+    private static final Set<String> EXCLUDED_NAMES = Set.of(".git", ".gradle");
+    private static final String DEV_NULL = "/dev/null";
+
+    // files of the root project and top level files of the cartridges
+    private static final int ALWAYS_COPIED_DEPTH = 2;
+
+    private final Path projectDir;
+    private final Path overlayDir;
+    private final StepFootprint footprint;
+
+    private DryRunOverlay(Path projectDir, Path overlayDir, StepFootprint footprint)
+    {
+        this.projectDir = projectDir;
+        this.overlayDir = overlayDir;
+        this.footprint = footprint;
+    }
+
+    /**
+     * Creates an overlay containing a copy of the whole project.
+     *
+     * @param projectDir the project directory
+     * @return the overlay, which must be closed to remove the copy
+     * @throws IOException if the project can't be copied
+     */
+    public static DryRunOverlay create(Path projectDir) throws IOException
+    {
+        return create(projectDir, new StepFootprint(false, List.of(), List.of()));
+    }
+
+    /**
+     * Creates an overlay containing a copy of the files of the project, which are read or written by the migration.
+     *
+     * @param projectDir the project directory
+     * @param footprint the combined footprint of the migration steps, see {@link StepFootprint#combine(List)}
+     * @return the overlay, which must be closed to remove the copy
+     * @throws IOException if the project can't be copied
+     */
+    public static DryRunOverlay create(Path projectDir, StepFootprint footprint) throws IOException
+    {
+        Path overlayDir = Files.createTempDirectory("icm-migration-dryrun");
+        DryRunOverlay overlay = new DryRunOverlay(projectDir, overlayDir.resolve(projectDir.getFileName().toString()), footprint);
+        try
+        {
+            overlay.copy();
+        }
+        catch(IOException e)
+        {
+            overlay.close();
+            throw e;
+        }
+        LOGGER.info("Dry run: migrating a copy of '{}' in '{}'.", projectDir, overlay.overlayDir);
+        return overlay;
+    }
+
+    /**
+     * @return the directory containing the copy of the project, which is migrated instead of the project
+     */
+    public Path getOverlayDir()
+    {
+        return overlayDir;
+    }
+
+    /**
+     * Writes the differences between the project and its migrated copy as unified diff. Paths are given relative to
+     * the project directory.
+     *
+     * @param out the stream to write the diff to
+     * @return the number of changed files
+     * @throws IOException if a file can't be read
+     */
+    public int writeDiff(OutputStream out) throws IOException
+    {
+        SortedSet<String> paths = new TreeSet<>();
+        // files which weren't copied are unknown to the migration
+        listFiles(projectDir).stream().filter(this::isCopied).forEach(paths::add);
+        paths.addAll(listFiles(overlayDir));
+
+        int changed = 0;
+        DiffAlgorithm algorithm = new HistogramDiff();
+        try (DiffFormatter formatter = new DiffFormatter(out))
+        {
+            for (String path : paths)
+            {
+                Path original = projectDir.resolve(path);
+                Path migrated = overlayDir.resolve(path);
+                boolean exists = Files.isRegularFile(original, LinkOption.NOFOLLOW_LINKS);
+                boolean existsMigrated = Files.isRegularFile(migrated, LinkOption.NOFOLLOW_LINKS);
+                if (exists && existsMigrated && Files.mismatch(original, migrated) == -1L)
+                {
+                    continue;
+                }
+                changed++;
+
+                byte[] content = exists ? Files.readAllBytes(original) : new byte[0];
+                byte[] migratedContent = existsMigrated ? Files.readAllBytes(migrated) : new byte[0];
+                writeLine(out, "diff --git a/" + path + " b/" + path);
+                if (!exists)
+                {
+                    writeLine(out, "new file");
+                }
+                else if (!existsMigrated)
+                {
+                    writeLine(out, "deleted file");
+                }
+                if (RawText.isBinary(content) || RawText.isBinary(migratedContent))
+                {
+                    writeLine(out, "Binary files differ");
+                    continue;
+                }
+                writeLine(out, "--- " + (exists ? "a/" + path : DEV_NULL));
+                writeLine(out, "+++ " + (existsMigrated ? "b/" + path : DEV_NULL));
+
+                RawText text = new RawText(content);
+                RawText migratedText = new RawText(migratedContent);
+                EditList edits = algorithm.diff(RawTextComparator.DEFAULT, text, migratedText);
+                formatter.format(edits, text, migratedText);
+                formatter.flush();
+            }
+        }
+        out.flush();
+        return changed;
+    }
+
+    /**
+     * Removes the copy of the project.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        Path tempDir = overlayDir.getParent();
+        if (!Files.exists(tempDir))
+        {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(tempDir))
+        {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void copy() throws IOException
+    {
+        Path source = projectDir;
+        Path target = overlayDir;
+        Files.walkFileTree(source, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                if (!dir.equals(source) && isExcluded(dir))
+                {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                if (!isExcluded(file) && isCopied(toRelativePath(source, file)))
+                {
+                    Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.COPY_ATTRIBUTES,
+                                    LinkOption.NOFOLLOW_LINKS);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static SortedSet<String> listFiles(Path root) throws IOException
+    {
+        SortedSet<String> result = new TreeSet<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+            {
+                return !dir.equals(root) && isExcluded(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (!isExcluded(file))
+                {
+                    result.add(toRelativePath(root, file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result;
+    }
+
+    private boolean isCopied(String relativePath)
+    {
+        return relativePath.split("/").length <= ALWAYS_COPIED_DEPTH
+                        || footprint.isRead(relativePath) || footprint.isWritten(relativePath);
+    }
+
+    private static String toRelativePath(Path root, Path file)
+    {
+        return root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+    }
+
+    private static boolean isExcluded(Path path)
+    {
+        return EXCLUDED_NAMES.contains(path.getFileName().toString());
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException
+    {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package com.intershop.customization.migration.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.MigrationStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fuses the migration steps of several migration step folders, e.g. for a migration from 7.10 to 13, into one plan
+ * executed by a single migration. The steps keep their order. The ids of the steps are qualified with their folder
+ * name ({@code 002_migration_11_to_12/005_ClasspathResourceFileCopier}), so the steps remain distinguishable in the
+ * journal and in commit messages.
+ * <p>
+ * Redundant steps are dropped: a step is redundant, if its preparer is {@link MigrationPreparer#isSupersededBy
+ * superseded} by the preparer of a later step and no step in between touches the paths written by it. This requires
+ * declared {@link StepFootprint footprints} of the redundant step and all steps in between. Preparers are only
+ * created for the pairs of steps left by the footprint check, and steps not selected are neither compared nor created.
+ */
+public final class MigrationPlan
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationPlan.class);
+
+    private static final String SEPARATOR = "/";
+
+    private MigrationPlan() { }
+
+    /**
+     * Fuses the steps of several migration step folders.
+     *
+     * @param stepsByFolder the steps of each folder by folder name, in the order of execution
+     * @return the fused steps; the steps of a single folder are returned unchanged
+     */
+    public static List<MigrationStep> fuse(Map<String, List<MigrationStep>> stepsByFolder)
+    {
+        return fuse(stepsByFolder, NameSelector.ALL);
+    }
+
+    /**
+     * Fuses the selected steps of several migration step folders.
+     *
+     * @param stepsByFolder the steps of each folder by folder name, in the order of execution
+     * @param stepSelector selector of the steps to execute, matching the qualified ids of the steps of several folders
+     * @return the fused steps; the selected steps of a single folder are returned unchanged
+     */
+    public static List<MigrationStep> fuse(Map<String, List<MigrationStep>> stepsByFolder, NameSelector stepSelector)
+    {
+        if (stepsByFolder.size() == 1)
+        {
+            List<MigrationStep> folderSteps = stepsByFolder.values().iterator().next();
+            return stepSelector.isAll() ? folderSteps : folderSteps.stream().filter(s -> stepSelector.matches(s.getId())).toList();
+        }
+
+        List<MigrationStep> steps = new ArrayList<>();
+        stepsByFolder.forEach((folder, folderSteps) -> folderSteps.forEach(s -> {
+            String id = folder + SEPARATOR + s.getId();
+            if (stepSelector.matches(id))
+            {
+                steps.add(s.withId(id));
+            }
+        }));
+
+        // created on demand, only for the steps compared after the footprint check
+        MigrationPreparer[] preparers = new MigrationPreparer[steps.size()];
+        IntFunction<MigrationPreparer> preparer = i -> {
+            if (preparers[i] == null)
+            {
+                preparers[i] = steps.get(i).getMigrator();
+            }
+            return preparers[i];
+        };
+        List<StepFootprint> footprints = steps.stream().map(StepFootprint::valueOf).toList();
+        List<MigrationStep> result = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++)
+        {
+            int supersedingStep = findSupersedingStep(i, preparer, footprints);
+            if (supersedingStep < 0)
+            {
+                result.add(steps.get(i));
+            }
+            else
+            {
+                LOGGER.info("Dropping migration step '{}', it is superseded by '{}'.", steps.get(i).getId(),
+                                steps.get(supersedingStep).getId());
+            }
+        }
+        LOGGER.info("Fused {} migration step folders into a plan of {} migration steps.", stepsByFolder.size(), result.size());
+        return result;
+    }
+
+    /**
+     * @return the index of the first later step superseding the given step, -1 if there is none
+     */
+    private static int findSupersedingStep(int index, IntFunction<MigrationPreparer> preparer, List<StepFootprint> footprints)
+    {
+        StepFootprint footprint = footprints.get(index);
+        if (!footprint.isDeclared())
+        {
+            return -1;
+        }
+        for (int later = index + 1; later < footprints.size(); later++)
+        {
+            // a superseding step overwrites the written paths, so steps not conflicting with them aren't compared
+            StepFootprint laterFootprint = footprints.get(later);
+            if (!footprint.conflictsWith(laterFootprint))
+            {
+                continue;
+            }
+            // otherwise the first conflicting step either supersedes the step or reads or modifies its paths
+            return laterFootprint.isDeclared() && preparer.apply(index).isSupersededBy(preparer.apply(later)) ? later : -1;
+        }
+        return -1;
+    }
+}
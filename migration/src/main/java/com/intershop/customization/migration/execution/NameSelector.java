@@ -0,0 +1,76 @@
+package com.intershop.customization.migration.execution;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Selects migration steps or cartridges by name. The selector is given as comma separated list of glob patterns,
+ * e.g. {@code 065_RenamedPackages,07*} or {@code app_sf_*}. A name is selected if it matches one of the patterns.
+ */
+public class NameSelector
+{
+    /** Selector selecting all names. */
+    public static final NameSelector ALL = new NameSelector(List.of());
+
+    private static final String GLOB_CHARACTERS = "*?[]{}\\";
+
+    private final List<String> patterns;
+    private final List<PathMatcher> matchers;
+
+    private NameSelector(List<String> patterns)
+    {
+        this.patterns = patterns;
+        this.matchers = patterns.stream().map(p -> FileSystems.getDefault().getPathMatcher("glob:" + p)).toList();
+    }
+
+    /**
+     * @param selector comma separated glob patterns
+     * @return the selector, {@link #ALL} if no pattern is given
+     */
+    public static NameSelector valueOf(String selector)
+    {
+        List<String> patterns = Arrays.stream(selector.split(",")).map(String::trim).filter(p -> !p.isEmpty()).toList();
+        return patterns.isEmpty() ? ALL : new NameSelector(patterns);
+    }
+
+    /**
+     * @return {@code true} if all names are selected
+     */
+    public boolean isAll()
+    {
+        return patterns.isEmpty();
+    }
+
+    /**
+     * @param name the step id or cartridge name
+     * @return {@code true} if the name is selected
+     */
+    public boolean matches(String name)
+    {
+        return isAll() || name != null && matchers.stream().anyMatch(m -> m.matches(Path.of(name)));
+    }
+
+    /**
+     * Names can be resolved without listing all candidates, if none of the patterns contains glob characters.
+     *
+     * @return the selected names, empty if the selector contains glob patterns or selects all names
+     */
+    public Optional<List<String>> getLiteralNames()
+    {
+        if (isAll() || patterns.stream().anyMatch(p -> p.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0)))
+        {
+            return Optional.empty();
+        }
+        return Optional.of(patterns);
+    }
+
+    @Override
+    public String toString()
+    {
+        return isAll() ? "*" : String.join(",", patterns);
+    }
+}
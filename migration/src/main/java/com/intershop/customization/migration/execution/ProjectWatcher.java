@@ -0,0 +1,222 @@
+package com.intershop.customization.migration.execution;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the files of a project for changes, e.g. files restored from the branch of the previous version during
+ * the manual migration. The directory tree is registered once at start, directories created later are registered
+ * as soon as they appear. Hidden directories (e.g. {@code .git}) and {@code build} directories are not watched.
+ * <p>
+ * Events are collected until the project is quiet for a short time, so copying a folder results in one batch of
+ * changed files. Files changed by the migration itself are {@link #acknowledge(Collection) acknowledged}, so they
+ * don't trigger another migration.
+ */
+public class ProjectWatcher implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectWatcher.class);
+
+    static final long QUIET_PERIOD_MILLIS = 100;
+    private static final String BUILD_DIR = "build";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final Map<Path, FileTime> acknowledged = new ConcurrentHashMap<>();
+
+    /**
+     * Starts watching a project.
+     *
+     * @param rootProject the root project directory
+     */
+    public ProjectWatcher(Path rootProject)
+    {
+        try
+        {
+            watchService = rootProject.getFileSystem().newWatchService();
+            register(rootProject.toAbsolutePath(), null);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't watch project '" + rootProject + "'", e);
+        }
+        LOGGER.debug("Watching {} directories of project '{}'.", watchedDirs.size(), rootProject);
+    }
+
+    /**
+     * Waits for changed files. After the first change, further changes are collected until no change occurs within
+     * the quiet period.
+     *
+     * @param timeout maximum time to wait for the first change, {@code null} to wait until the watcher is closed
+     * @return the created or modified regular files, empty if the timeout elapsed or the watcher was closed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public Set<Path> awaitChanges(Duration timeout) throws InterruptedException
+    {
+        Set<Path> changedFiles = new LinkedHashSet<>();
+        try
+        {
+            WatchKey key = timeout == null ? watchService.take() : watchService.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            while (key != null)
+            {
+                collect(key, changedFiles);
+                key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        catch(ClosedWatchServiceException e)
+        {
+            LOGGER.debug("Watcher is closed.");
+        }
+        changedFiles.removeIf(file -> !Files.isRegularFile(file) || isAcknowledged(file));
+        return changedFiles;
+    }
+
+    /**
+     * Acknowledges the current state of files, e.g. after they were migrated. Events of these files are ignored until
+     * the files are modified again.
+     *
+     * @param files the files to acknowledge
+     */
+    public void acknowledge(Collection<Path> files)
+    {
+        for (Path file : files)
+        {
+            try
+            {
+                acknowledged.put(file, Files.getLastModifiedTime(file));
+            }
+            catch(IOException e)
+            {
+                // the file was moved or deleted by the migration
+                acknowledged.remove(file);
+            }
+        }
+    }
+
+    private boolean isAcknowledged(Path file)
+    {
+        FileTime lastModified = acknowledged.get(file);
+        try
+        {
+            return lastModified != null && lastModified.equals(Files.getLastModifiedTime(file));
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changedFiles)
+    {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == OVERFLOW)
+            {
+                LOGGER.warn("Too many changes in '{}', some changed files are not migrated.", dir);
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path))
+            {
+                if (isIgnored(path))
+                {
+                    continue;
+                }
+                // a copied or restored folder, its content doesn't cause further events
+                try
+                {
+                    register(path, changedFiles);
+                }
+                catch(IOException e)
+                {
+                    LOGGER.warn("Can't watch directory '{}'.", path, e);
+                }
+            }
+            else
+            {
+                changedFiles.add(path);
+            }
+        }
+        if (!key.reset())
+        {
+            watchedDirs.remove(key);
+        }
+    }
+
+    private void register(Path dir, Set<Path> files) throws IOException
+    {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) throws IOException
+            {
+                if (!subDir.equals(dir) && isIgnored(subDir))
+                {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                watchedDirs.put(subDir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), subDir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (files != null)
+                {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean isIgnored(Path dir)
+    {
+        String name = dir.getFileName().toString();
+        return name.startsWith(".") || BUILD_DIR.equals(name);
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            watchService.close();
+        }
+        catch(IOException e)
+        {
+            LOGGER.debug("Can't close watch service.", e);
+        }
+    }
+}
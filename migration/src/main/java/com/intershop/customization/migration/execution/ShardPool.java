@@ -0,0 +1,311 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.common.OperationCodec;
+import com.intershop.customization.migration.common.OperationCodec.ProjectOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of {@link ShardWorker} processes. The cartridges of a migration step are split into one shard per worker,
+ * balanced by their estimated cost, the shards are migrated concurrently and the operations recorded by the workers are merged into the context of
+ * the coordinating migration.
+ * <p>
+ * Workers are started once and reused for all migration steps. They only need access to the file system of the
+ * project and the step descriptions, so the worker command may also start them on other machines sharing the file
+ * system.
+ */
+public class ShardPool implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardPool.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final ExecutorService executor;
+
+    /**
+     * Starts the worker processes.
+     *
+     * @param shards number of worker processes
+     * @param workerCommand command starting a worker process, see {@link #getDefaultWorkerCommand()}
+     */
+    public ShardPool(int shards, List<String> workerCommand)
+    {
+        executor = Executors.newFixedThreadPool(shards);
+        try
+        {
+            for (int i = 0; i < shards; i++)
+            {
+                workers.add(new Worker(i, new ProcessBuilder(workerCommand).redirectError(ProcessBuilder.Redirect.INHERIT)
+                                                                              .start()));
+            }
+        }
+        catch(IOException e)
+        {
+            close();
+            throw new UncheckedIOException("Can't start shard worker process", e);
+        }
+        LOGGER.info("Started {} shard worker processes.", shards);
+    }
+
+    /**
+     * @return command starting a worker process with the Java runtime and class path of the current process
+     */
+    public static List<String> getDefaultWorkerCommand()
+    {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return List.of(java, "-cp", System.getProperty("java.class.path"), ShardWorker.class.getName());
+    }
+
+    /**
+     * @return number of worker processes
+     */
+    public int getShards()
+    {
+        return workers.size();
+    }
+
+    /**
+     * Migrates cartridges in the worker processes and waits until all shards are finished. The cartridges are split
+     * round-robin.
+     *
+     * @param step the migration step, which must be loaded from a file
+     * @param cartridgeDirs the cartridges to migrate
+     * @param context the context receiving the operations recorded by the workers
+     * @param onCartridgeDone called for each migrated cartridge
+     * @see #migrate(MigrationStep, List, MigrationContext, ToLongFunction, ObjLongConsumer)
+     */
+    public void migrate(MigrationStep step, List<File> cartridgeDirs, MigrationContext context,
+                    Consumer<File> onCartridgeDone)
+    {
+        migrate(step, cartridgeDirs, context, c -> 1, (c, millis) -> onCartridgeDone.accept(c));
+    }
+
+    /**
+     * Migrates cartridges in the worker processes and waits until all shards are finished. If a shard fails, the
+     * first failure is rethrown after all shards are finished.
+     *
+     * @param step the migration step, which must be loaded from a file
+     * @param cartridgeDirs the cartridges to migrate, the most expensive first
+     * @param context the context receiving the operations recorded by the workers
+     * @param cost estimated cost of a cartridge, used to balance the shards
+     * @param onCartridgeDone called for each migrated cartridge with the duration of its migration in milliseconds
+     */
+    public void migrate(MigrationStep step, List<File> cartridgeDirs, MigrationContext context,
+                    ToLongFunction<File> cost, ObjLongConsumer<File> onCartridgeDone)
+    {
+        if (step.getPath() == null)
+        {
+            throw new IllegalArgumentException("Migration step '" + step.getId() + "' can't be sharded, it isn't loaded from a file.");
+        }
+
+        List<List<File>> shards = split(cartridgeDirs, workers.size(), cost);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++)
+        {
+            Worker worker = workers.get(i);
+            List<File> shard = shards.get(i);
+            if (!shard.isEmpty())
+            {
+                futures.add(executor.submit(() -> worker.migrate(step.getPath(), shard, context, onCartridgeDone)));
+            }
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch(ExecutionException e)
+            {
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+                }
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for shard workers", e);
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Splits cartridges round-robin into the given number of shards.
+     *
+     * @param cartridgeDirs the cartridges to split
+     * @param shards number of shards
+     * @return the shards, some of them may be empty
+     */
+    static List<List<File>> split(List<File> cartridgeDirs, int shards)
+    {
+        return split(cartridgeDirs, shards, c -> 1);
+    }
+
+    /**
+     * Splits cartridges into the given number of shards. Each cartridge is assigned to the shard with the lowest
+     * total cost so far, so passing the cartridges ordered by descending cost balances the shards (longest
+     * processing time first). With equal costs, the cartridges are split round-robin.
+     *
+     * @param cartridgeDirs the cartridges to split
+     * @param shards number of shards
+     * @param cost estimated cost of a cartridge
+     * @return the shards, some of them may be empty
+     */
+    static List<List<File>> split(List<File> cartridgeDirs, int shards, ToLongFunction<File> cost)
+    {
+        List<List<File>> result = new ArrayList<>();
+        long[] load = new long[shards];
+        for (int i = 0; i < shards; i++)
+        {
+            result.add(new ArrayList<>());
+        }
+        for (File cartridgeDir : cartridgeDirs)
+        {
+            int shard = 0;
+            for (int i = 1; i < shards; i++)
+            {
+                if (load[i] < load[shard])
+                {
+                    shard = i;
+                }
+            }
+            result.get(shard).add(cartridgeDir);
+            load[shard] += Math.max(cost.applyAsLong(cartridgeDir), 1);
+        }
+        return result;
+    }
+
+    /**
+     * Stops the worker processes by closing their input.
+     */
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+        for (Worker worker : workers)
+        {
+            worker.close();
+        }
+    }
+
+    /**
+     * Connection to one worker process. Requests to a worker are serialized.
+     */
+    private static class Worker
+    {
+        private final int index;
+        private final Process process;
+        private final BufferedWriter in;
+        private final BufferedReader out;
+
+        Worker(int index, Process process)
+        {
+            this.index = index;
+            this.process = process;
+            this.in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        synchronized void migrate(Path stepPath, List<File> cartridgeDirs, MigrationContext context,
+                        ObjLongConsumer<File> onCartridgeDone)
+        {
+            try
+            {
+                StringBuilder request = new StringBuilder(ShardWorker.REQUEST_MIGRATE).append(ShardWorker.SEPARATOR)
+                                                                                        .append(stepPath);
+                for (File cartridgeDir : cartridgeDirs)
+                {
+                    request.append(ShardWorker.SEPARATOR).append(cartridgeDir.getAbsolutePath());
+                }
+                in.write(request.append('\n').toString());
+                in.flush();
+
+                String line;
+                while ((line = out.readLine()) != null)
+                {
+                    int separator = line.indexOf(ShardWorker.SEPARATOR);
+                    String type = separator < 0 ? line : line.substring(0, separator);
+                    String value = separator < 0 ? "" : line.substring(separator + 1);
+                    switch (type)
+                    {
+                        case ShardWorker.RESPONSE_OPERATION ->
+                        {
+                            ProjectOperation operation = OperationCodec.decode(value);
+                            context.recordOperation(operation.projectName(), operation.operation());
+                        }
+                        case ShardWorker.RESPONSE_DONE ->
+                        {
+                            int durationSeparator = value.lastIndexOf(ShardWorker.SEPARATOR);
+                            onCartridgeDone.accept(new File(value.substring(0, durationSeparator)),
+                                            Long.parseLong(value.substring(durationSeparator + 1)));
+                        }
+                        case ShardWorker.RESPONSE_OK ->
+                        {
+                            return;
+                        }
+                        case ShardWorker.RESPONSE_ERROR ->
+                            throw new IllegalStateException("Shard worker " + index + " failed: " + value);
+                        default -> LOGGER.warn("Unexpected response of shard worker {}: {}", index, line);
+                    }
+                }
+                throw new IllegalStateException("Shard worker " + index + " terminated unexpectedly.");
+            }
+            catch(IOException e)
+            {
+                throw new UncheckedIOException("Communication with shard worker " + index + " failed", e);
+            }
+        }
+
+        void close()
+        {
+            try
+            {
+                in.close();
+                if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                {
+                    process.destroyForcibly();
+                }
+            }
+            catch(IOException e)
+            {
+                process.destroyForcibly();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+}
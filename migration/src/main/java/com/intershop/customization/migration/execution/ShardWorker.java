@@ -0,0 +1,113 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.common.OperationCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Worker process migrating the cartridges of a shard on behalf of a {@link ShardPool}. Requests are read from the
+ * standard input, one per line:
+ * <pre>
+ * migrate TAB &lt;path of step description&gt; TAB &lt;cartridge directory&gt; [TAB &lt;cartridge directory&gt; ...]
+ * </pre>
+ * For each migrated cartridge, the recorded operations are answered as {@code op TAB <NDJSON>} lines followed by
+ * {@code done TAB <cartridge directory> TAB <milliseconds>}. A request is finished by {@code ok}, or by {@code error TAB <message>} if
+ * a cartridge can't be migrated. A cartridge exceeding the time budget of the step is answered by its failed
+ * operation only, without {@code done}. The worker stops at the end of the input.
+ * <p>
+ * The standard output is reserved for the protocol, so console output including the log is redirected to the
+ * standard error.
+ */
+public class ShardWorker
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardWorker.class);
+
+    static final String REQUEST_MIGRATE = "migrate";
+    static final String RESPONSE_OPERATION = "op";
+    static final String RESPONSE_DONE = "done";
+    static final String RESPONSE_OK = "ok";
+    static final String RESPONSE_ERROR = "error";
+    static final String SEPARATOR = "\t";
+
+    private final Map<Path, MigrationStep> steps = new HashMap<>();
+    private final TimeBudget timeBudget = new TimeBudget();
+    private final PrintStream out;
+
+    ShardWorker(PrintStream out)
+    {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        PrintStream protocol = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
+        ShardWorker worker = new ShardWorker(protocol);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null)
+        {
+            worker.handle(line);
+        }
+    }
+
+    void handle(String request)
+    {
+        List<String> fields = List.of(request.split(SEPARATOR));
+        if (fields.size() < 2 || !REQUEST_MIGRATE.equals(fields.get(0)))
+        {
+            respond(RESPONSE_ERROR + SEPARATOR + "unknown request '" + request + "'");
+            return;
+        }
+
+        try
+        {
+            MigrationStep step = steps.computeIfAbsent(Path.of(fields.get(1)), MigrationStep::valueOf);
+            MigrationPreparer migrator = step.getMigrator();
+            for (String cartridge : fields.subList(2, fields.size()))
+            {
+                MigrationContext context = new MigrationContext();
+                long start = System.nanoTime();
+                boolean finished = timeBudget.run(step, Path.of(cartridge), null, context,
+                                () -> migrator.migrate(Path.of(cartridge), context));
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                for (Map.Entry<String, List<Operation>> operations : context.getOperations().entrySet())
+                {
+                    operations.getValue().forEach(op -> out.println(RESPONSE_OPERATION + SEPARATOR
+                                    + OperationCodec.encode(operations.getKey(), op)));
+                }
+                if (finished)
+                {
+                    out.println(RESPONSE_DONE + SEPARATOR + cartridge + SEPARATOR + millis);
+                }
+            }
+            respond(RESPONSE_OK);
+        }
+        catch(RuntimeException e)
+        {
+            LOGGER.error("Migration of shard failed", e);
+            respond(RESPONSE_ERROR + SEPARATOR + String.valueOf(e).replace('\n', ' ').replace('\r', ' '));
+        }
+    }
+
+    private void respond(String line)
+    {
+        out.println(line);
+        out.flush();
+    }
+}
@@ -0,0 +1,195 @@
+package com.intershop.customization.migration.execution;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.intershop.customization.migration.common.MigrationStep;
+
+/**
+ * Declared read and write footprint of a migration step. The footprint consists of glob patterns relative to the
+ * root project, e.g. {@code *}{@code /src/main/**} for the sources of all cartridges or {@code *.version} for files in
+ * the root project. A pattern covers the matching path and everything below it.
+ * <p>
+ * Example YAML configuration:
+ * <pre>
+ * type: specs.intershop.com/v1beta/migrate
+ * migrator: com.intershop.customization.migration.gradle.RenamedPackages
+ * reads:
+ *   - "*&#47;src/**"
+ * writes:
+ *   - "*&#47;src/**"
+ * </pre>
+ * Steps without a declared footprint are treated as reading and writing everything.
+ */
+public class StepFootprint
+{
+    private static final String SEPARATOR = "/";
+    private static final String ANY_PATH = "**";
+
+    private final boolean declared;
+    private final List<String> reads;
+    private final List<String> writes;
+    private final List<PathMatcher> readMatchers;
+    private final List<PathMatcher> writeMatchers;
+
+    public StepFootprint(boolean declared, List<String> reads, List<String> writes)
+    {
+        this.declared = declared;
+        this.reads = reads;
+        this.writes = writes;
+        this.readMatchers = compile(reads);
+        this.writeMatchers = compile(writes);
+    }
+
+    public static StepFootprint valueOf(MigrationStep step)
+    {
+        return new StepFootprint(step.hasFootprint(), step.getReads(), step.getWrites());
+    }
+
+    /**
+     * Combines the footprints of several steps, e.g. of steps applied one after another to a cartridge.
+     *
+     * @param footprints the footprints to combine
+     * @return footprint covering all reads and writes, undeclared if one of the footprints is undeclared
+     */
+    public static StepFootprint combine(List<StepFootprint> footprints)
+    {
+        boolean declared = footprints.stream().allMatch(StepFootprint::isDeclared);
+        List<String> reads = footprints.stream().flatMap(f -> f.reads.stream()).distinct().toList();
+        List<String> writes = footprints.stream().flatMap(f -> f.writes.stream()).distinct().toList();
+        return new StepFootprint(declared, reads, writes);
+    }
+
+    public boolean isDeclared()
+    {
+        return declared;
+    }
+
+    public List<String> getReads()
+    {
+        return reads;
+    }
+
+    public List<String> getWrites()
+    {
+        return writes;
+    }
+
+    /**
+     * Checks if this footprint conflicts with the footprint of another step, so that both steps must not run at the
+     * same time. Two steps conflict if one of them writes a path the other one reads or writes.
+     *
+     * @param other footprint of the other step
+     * @return {@code true} if the steps conflict, {@code false} if they are independent
+     */
+    public boolean conflictsWith(StepFootprint other)
+    {
+        if (!declared || !other.declared)
+        {
+            return true;
+        }
+        return anyOverlap(writes, other.reads) || anyOverlap(writes, other.writes) || anyOverlap(reads, other.writes);
+    }
+
+    /**
+     * Checks if a path relative to the root project is covered by the write patterns of this footprint.
+     *
+     * @param relativePath path relative to the root project using '/' as separator
+     * @return {@code true} if the path is written by the step
+     */
+    public boolean isWritten(String relativePath)
+    {
+        if (!declared)
+        {
+            return true;
+        }
+        Path path = Path.of(relativePath);
+        return writeMatchers.stream().anyMatch(matcher -> matcher.matches(path));
+    }
+
+    /**
+     * Checks if a path relative to the root project is covered by the read patterns of this footprint.
+     *
+     * @param relativePath path relative to the root project using '/' as separator
+     * @return {@code true} if the path is read by the step
+     */
+    public boolean isRead(String relativePath)
+    {
+        if (!declared)
+        {
+            return true;
+        }
+        Path path = Path.of(relativePath);
+        return readMatchers.stream().anyMatch(matcher -> matcher.matches(path));
+    }
+
+    // a pattern covers the matching path and everything below it
+    private static List<PathMatcher> compile(List<String> patterns)
+    {
+        return patterns.stream()
+                       .flatMap(p -> Stream.of(p, p + SEPARATOR + ANY_PATH))
+                       .map(p -> FileSystems.getDefault().getPathMatcher("glob:" + p))
+                       .toList();
+    }
+
+    private static boolean anyOverlap(List<String> patterns, List<String> otherPatterns)
+    {
+        return patterns.stream().anyMatch(p -> otherPatterns.stream().anyMatch(o -> overlaps(p, o)));
+    }
+
+    /**
+     * Conservatively checks if two glob patterns can match a common path (or one a parent of the other). The
+     * patterns are compared segment by segment, a '**' segment is assumed to match anything.
+     *
+     * @param pattern first pattern
+     * @param otherPattern second pattern
+     * @return {@code false} only if the patterns are guaranteed to be disjoint
+     */
+    static boolean overlaps(String pattern, String otherPattern)
+    {
+        String[] segments = pattern.split(SEPARATOR);
+        String[] otherSegments = otherPattern.split(SEPARATOR);
+        for (int i = 0; i < Math.min(segments.length, otherSegments.length); i++)
+        {
+            String segment = segments[i];
+            String otherSegment = otherSegments[i];
+            if (segment.contains(ANY_PATH) || otherSegment.contains(ANY_PATH))
+            {
+                return true;
+            }
+            if (!segmentsOverlap(segment, otherSegment))
+            {
+                return false;
+            }
+        }
+        // one pattern is a parent of the other one
+        return true;
+    }
+
+    private static boolean segmentsOverlap(String segment, String otherSegment)
+    {
+        boolean wildcard = isWildcard(segment);
+        boolean otherWildcard = isWildcard(otherSegment);
+        if (wildcard && otherWildcard)
+        {
+            return true;
+        }
+        if (wildcard)
+        {
+            return FileSystems.getDefault().getPathMatcher("glob:" + segment).matches(Path.of(otherSegment));
+        }
+        if (otherWildcard)
+        {
+            return FileSystems.getDefault().getPathMatcher("glob:" + otherSegment).matches(Path.of(segment));
+        }
+        return segment.equals(otherSegment);
+    }
+
+    private static boolean isWildcard(String segment)
+    {
+        return segment.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+}
@@ -0,0 +1,140 @@
+package com.intershop.customization.migration.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import com.intershop.customization.migration.common.MigrationStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules migration steps based on their declared {@link StepFootprint footprints}. A step depends on all
+ * preceding steps it conflicts with, independent steps are executed at the same time.
+ * <p>
+ * Regardless of the execution order, finished steps are committed in the declared order: a step is committed as soon
+ * as it and all preceding steps are finished. A step is started once the steps it depends on are committed, so its
+ * changes aren't staged by the commit of a step it depends on.
+ */
+public class StepScheduler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepScheduler.class);
+
+    private final List<MigrationStep> steps;
+    private final List<StepFootprint> footprints;
+    private final List<Set<Integer>> dependencies;
+
+    public StepScheduler(List<MigrationStep> steps)
+    {
+        this.steps = steps;
+        this.footprints = steps.stream().map(StepFootprint::valueOf).toList();
+        this.dependencies = new ArrayList<>();
+        for (int j = 0; j < steps.size(); j++)
+        {
+            Set<Integer> stepDependencies = new TreeSet<>();
+            for (int i = 0; i < j; i++)
+            {
+                if (footprints.get(i).conflictsWith(footprints.get(j)))
+                {
+                    stepDependencies.add(i);
+                }
+            }
+            dependencies.add(Collections.unmodifiableSet(stepDependencies));
+            LOGGER.debug("Migration step '{}' depends on {}.", steps.get(j).getId(),
+                            stepDependencies.stream().map(i -> steps.get(i).getId()).toList());
+        }
+    }
+
+    /**
+     * @return for each step the indices of the preceding steps it depends on
+     */
+    List<Set<Integer>> getDependencies()
+    {
+        return dependencies;
+    }
+
+    /**
+     * Executes all steps. If a step fails, no further steps are started, running steps are awaited and the failure
+     * is rethrown. Steps finished before the failed one are still committed.
+     *
+     * @param executor executor running the steps, its size limits the number of concurrently executed steps
+     * @param stepAction migrates the root project and the cartridges of a step
+     * @param commitAction commits the changes of a step, called in declared order from the calling thread
+     */
+    public void execute(ExecutorService executor, Consumer<MigrationStep> stepAction,
+                    BiConsumer<MigrationStep, StepFootprint> commitAction)
+    {
+        int size = steps.size();
+        boolean[] started = new boolean[size];
+        boolean[] finished = new boolean[size];
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        int running = 0;
+        int nextCommit = 0;
+        RuntimeException failure = null;
+
+        while (true)
+        {
+            if (failure == null)
+            {
+                for (int i = 0; i < size; i++)
+                {
+                    // steps are committed in declared order, so all steps before nextCommit are committed
+                    int committed = nextCommit;
+                    if (!started[i] && dependencies.get(i).stream().allMatch(d -> d < committed))
+                    {
+                        int index = i;
+                        started[index] = true;
+                        running++;
+                        LOGGER.info("Starting migration step '{}' ({} running).", steps.get(index).getId(), running);
+                        completion.submit(() -> {
+                            stepAction.accept(steps.get(index));
+                            return index;
+                        });
+                    }
+                }
+            }
+            if (running == 0)
+            {
+                break;
+            }
+
+            try
+            {
+                Future<Integer> future = completion.take();
+                running--;
+                finished[future.get()] = true;
+            }
+            catch(ExecutionException e)
+            {
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+                }
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for migration steps", e);
+            }
+
+            while (nextCommit < size && finished[nextCommit])
+            {
+                commitAction.accept(steps.get(nextCommit), footprints.get(nextCommit));
+                nextCommit++;
+            }
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+}
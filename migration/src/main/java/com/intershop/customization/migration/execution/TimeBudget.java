@@ -0,0 +1,168 @@
+package com.intershop.customization.migration.execution;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.intershop.customization.migration.common.CancellationToken;
+import com.intershop.customization.migration.common.MigrationCancelledException;
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watchdog enforcing the time budgets of migration steps. A budget owns a {@link CancellationToken}, which is
+ * cancelled when the budget is exceeded or when the budget it is nested in is exceeded, e.g. the budget of a
+ * cartridge is nested in the budget of its migration step.
+ */
+public class TimeBudget implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeBudget.class);
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "migration-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts a budget.
+     *
+     * @param description description of the budgeted work, used in the cancellation reason
+     * @param duration the budget, {@code null} for no limit
+     * @param parent the budget this budget is nested in, {@code null} if there is none
+     * @return the started budget, which must be closed when the work is finished
+     */
+    public Budget start(String description, Duration duration, Budget parent)
+    {
+        Budget budget = new Budget(description, duration);
+        if (parent != null)
+        {
+            budget.unlinkParent = parent.token.onCancel(() -> budget.token.cancel(parent.token.getReason()));
+        }
+        if (duration != null)
+        {
+            budget.timeout = watchdog.schedule(() -> {
+                LOGGER.warn("{} exceeded its time budget of {}, cancelling it.", description, duration);
+                budget.token.cancel(description + " exceeded its time budget of " + duration);
+            }, duration.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return budget;
+    }
+
+    /**
+     * Runs the migration of the root project or a cartridge within the budget per cartridge of its step. The
+     * migration is cancelled by the {@link CancellationToken} of the context. If the budget is exceeded, a failed
+     * operation with the elapsed time is recorded.
+     *
+     * @param step the migration step
+     * @param resource the root project or cartridge directory
+     * @param parent the budget of the step, {@code null} if there is none
+     * @param context the migration context
+     * @param migration the migration to run
+     * @return {@code true} if the migration finished within its budget, {@code false} otherwise
+     */
+    public boolean run(MigrationStep step, Path resource, Budget parent, MigrationContext context, Runnable migration)
+    {
+        String resourceName = resource.getFileName().toString();
+        try (Budget budget = start("Migration step '" + step.getId() + "' of '" + resourceName + "'",
+                        step.getCartridgeTimeout(), parent))
+        {
+            try
+            {
+                context.runCancellable(budget.getToken(), migration);
+            }
+            catch(MigrationCancelledException e)
+            {
+                LOGGER.debug("Migration of '{}' was cancelled: {}", resourceName, e.getMessage());
+            }
+            if (budget.isExceeded())
+            {
+                LOGGER.error("{} after {} ms.", budget.getReason(), budget.getElapsedMillis());
+                context.recordFailure(resourceName, MigrationContext.OperationType.MODIFY, resource, null,
+                                budget.getReason() + " after " + budget.getElapsedMillis() + " ms");
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Time budget of a unit of work.
+     */
+    public static class Budget implements AutoCloseable
+    {
+        private final String description;
+        private final Duration duration;
+        private final CancellationToken token = new CancellationToken();
+        private final long start = System.nanoTime();
+        private ScheduledFuture<?> timeout;
+        private Runnable unlinkParent;
+
+        private Budget(String description, Duration duration)
+        {
+            this.description = description;
+            this.duration = duration;
+        }
+
+        /**
+         * @return the token, which is cancelled when the budget is exceeded
+         */
+        public CancellationToken getToken()
+        {
+            return token;
+        }
+
+        /**
+         * @return {@code true} if the work was cancelled, or if it didn't check the token and took longer than the
+         *         budget
+         */
+        public boolean isExceeded()
+        {
+            return token.isCancelled() || duration != null && getElapsedMillis() > duration.toMillis();
+        }
+
+        /**
+         * @return the milliseconds since the budget was started
+         */
+        public long getElapsedMillis()
+        {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+
+        /**
+         * @return the reason why the work was cancelled
+         */
+        public String getReason()
+        {
+            return token.isCancelled() ? token.getReason() : description + " exceeded its time budget of " + duration;
+        }
+
+        /**
+         * Stops watching the budget.
+         */
+        @Override
+        public void close()
+        {
+            if (timeout != null)
+            {
+                timeout.cancel(false);
+            }
+            if (unlinkParent != null)
+            {
+                unlinkParent.run();
+            }
+        }
+    }
+}
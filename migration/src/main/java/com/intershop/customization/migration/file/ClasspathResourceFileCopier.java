@@ -1,8 +1,8 @@
 package com.intershop.customization.migration.file;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Collections;
@@ -11,6 +11,7 @@ import java.util.Map;
 import com.intershop.customization.migration.common.MigrationContext;
 import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.common.ResourceCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +38,9 @@ import org.slf4j.LoggerFactory;
  *     "rewrite" : "Created rewrite.gradle in root project."
  * </pre>
  * </p>
+ * <p>
+ * The resources are extracted once into the {@link ResourceCache} and copied from there.
+ * </p>
  *
  * Implements {@link MigrationPreparer} for integration with the migration framework.
  */
@@ -61,6 +65,16 @@ public class ClasspathResourceFileCopier implements MigrationPreparer
         this.logConfiguration       = step.getOption(YAML_KEY_LOGGING_MAP);
     }
 
+    /**
+     * A copier is superseded by a later copier replacing all of its target files.
+     */
+    @Override
+    public boolean isSupersededBy(MigrationPreparer later)
+    {
+        return later instanceof ClasspathResourceFileCopier copier
+                        && copier.targetConfiguration.values().containsAll(targetConfiguration.values());
+    }
+
     @Override
     public void migrateRoot(Path resource, MigrationContext context)
     {
@@ -68,16 +82,20 @@ public class ClasspathResourceFileCopier implements MigrationPreparer
         {
             String artifactName = sourceEntry.getKey();
 
-            try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(sourceEntry.getValue()))
+            try
             {
-                if (inputStream == null)
+                Path sourcePath;
+                try
+                {
+                    sourcePath = ResourceCache.getResource(sourceEntry.getValue());
+                }
+                catch (NoSuchFileException e)
                 {
                     logger.error("Resource '{}' not found in classpath.", sourceEntry.getValue());
                     context.recordFailure(artifactName, MigrationContext.OperationType.CREATE, resource, resource,
                             "Resource '" + sourceEntry.getValue() + "' not found in classpath.");
                     continue;
                 }
-
                 Path targetPath = resource.resolve(targetConfiguration.get(artifactName));
                 if (Files.exists(targetPath))
                 {
@@ -85,7 +103,7 @@ public class ClasspathResourceFileCopier implements MigrationPreparer
                                     targetPath, sourceEntry.getValue());
                 }
 
-                Files.copy(inputStream, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
                 context.recordSuccess(artifactName, MigrationContext.OperationType.CREATE, resource, targetPath);
 
                 String logMessage = logConfiguration.get(artifactName);
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -62,6 +63,12 @@ public class MoveFiles implements MigrationPreparer
         this.filterConfiguration = step.getOption(YAML_KEY_FILTER_MAP);
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path cartridgeDir, MigrationContext context)
     {
@@ -93,28 +100,60 @@ public class MoveFiles implements MigrationPreparer
                     {
                         continue;
                     }
-                    String fileName = file.getName();
-                    if (!shouldMigrate(fileName, artifactName))
-                    {
-                        continue;
-                    }
-                    Path targetFile = targetPath.resolve(fileName);
-                    try
-                    {
-                        Files.move(file.toPath(), targetFile);
-                        context.recordSuccess(cartridgeName, MOVE, file.toPath(), targetFile);
-                    }
-                    catch(IOException e)
-                    {
-                        context.recordFailure(cartridgeName, MOVE, file.toPath(), targetFile,
-                                "Can't move file: " + e.getMessage());
-                        throw new RuntimeException(e);
-                    }
+                    moveFile(file.toPath(), artifactName, targetPath, cartridgeName, context);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isFileScoped()
+    {
+        return true;
+    }
+
+    @Override
+    public void migrateFiles(Path cartridgeDir, List<Path> files, MigrationContext context)
+    {
+        String cartridgeName = getResourceName(cartridgeDir);
+        for (Map.Entry<String, String> sourceEntry : sourceConfiguration.entrySet())
+        {
+            String artifactName = sourceEntry.getKey();
+            Path sourcePath = cartridgeDir.resolve(sourceEntry.getValue().replace(PLACEHOLDER_CARTRIDGE_NAME, cartridgeName));
+            Path targetPath = cartridgeDir.resolve(targetConfiguration.get(artifactName).replace(PLACEHOLDER_CARTRIDGE_NAME, cartridgeName));
+            for (Path file : files)
+            {
+                // only files directly located in the source folder are moved
+                if (sourcePath.equals(file.getParent()) && Files.isRegularFile(file))
+                {
+                    targetPath.toFile().mkdirs();
+                    moveFile(file, artifactName, targetPath, cartridgeName, context);
                 }
             }
         }
     }
 
+    private void moveFile(Path file, String artifactName, Path targetPath, String cartridgeName, MigrationContext context)
+    {
+        String fileName = file.getFileName().toString();
+        if (!shouldMigrate(fileName, artifactName))
+        {
+            return;
+        }
+        Path targetFile = targetPath.resolve(fileName);
+        try
+        {
+            Files.move(file, targetFile);
+            context.recordSuccess(cartridgeName, MOVE, file, targetFile);
+        }
+        catch(IOException e)
+        {
+            context.recordFailure(cartridgeName, MOVE, file, targetFile,
+                    "Can't move file: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
     private boolean shouldMigrate(String fileName, String artifactName)
     {
         if (filterConfiguration.containsKey(artifactName))
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -55,6 +56,12 @@ public class MoveFilteredFolder implements MigrationPreparer
         this.filterConfiguration = step.getOption(YAML_KEY_FILTER_MAP);
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path cartridgeDir, MigrationContext context)
     {
@@ -78,6 +85,8 @@ public class MoveFilteredFolder implements MigrationPreparer
             String targetPathAsString = targetConfiguration.get(artifactName);
             Path targetPath = cartridgeDir.resolve(targetPathAsString.replace(PLACEHOLDER_CARTRIDGE_NAME, cartridgeName));
 
+            // the moved files are recorded as one operation, failures per file
+            long[] moved = new long[2];
             try
             {
                 // create target folder if not exists
@@ -94,21 +103,8 @@ public class MoveFilteredFolder implements MigrationPreparer
                     stream.filter(Files::isRegularFile)
                         .filter(path -> shouldMove(path, filter))
                         .forEach(file -> {
-                            try
-                            {
-                                Path relativePath = sourcePath.relativize(file);
-                                Path destination = targetPath.resolve(relativePath);
-                                Files.createDirectories(destination.getParent());
-                                Files.move(file, destination);
-
-                                logger.debug("Moved file {} to {}.", file, destination);
-                                context.recordSuccess(cartridgeName, MOVE, file, destination);
-                            }
-                            catch (IOException e)
-                            {
-                                logger.error("An error occurred while moving file " + file + " to " + targetPath + ": " + e.getMessage(), e);
-                                context.recordFailure(cartridgeName, MOVE, file, null, "Cannot move file: " + e.getMessage());
-                            }
+                            context.getCancellationToken().throwIfCancelled();
+                            count(moved, moveFile(file, sourcePath, targetPath, cartridgeName, context));
                         });
                 }
 
@@ -120,6 +116,90 @@ public class MoveFilteredFolder implements MigrationPreparer
                 context.recordFailure(cartridgeName, MOVE, sourcePath, targetPath, "Cannot move folder: " + ioe.getMessage());
                 throw new RuntimeException(ioe);
             }
+            finally
+            {
+                recordMoved(cartridgeName, sourcePath, targetPath, moved, context);
+            }
+        }
+    }
+
+    @Override
+    public boolean isFileScoped()
+    {
+        return true;
+    }
+
+    @Override
+    public void migrateFiles(Path cartridgeDir, List<Path> files, MigrationContext context)
+    {
+        String cartridgeName = getResourceName(cartridgeDir);
+        for (Map.Entry<String, String> sourceEntry : sourceConfiguration.entrySet())
+        {
+            String artifactName = sourceEntry.getKey();
+            Path sourcePath = cartridgeDir.resolve(sourceEntry.getValue().replace(PLACEHOLDER_CARTRIDGE_NAME, cartridgeName));
+            Path targetPath = cartridgeDir.resolve(targetConfiguration.get(artifactName).replace(PLACEHOLDER_CARTRIDGE_NAME, cartridgeName));
+            String filter = filterConfiguration.get(artifactName);
+
+            List<Path> sourceFiles = files.stream()
+                                          .filter(file -> file.startsWith(sourcePath) && Files.isRegularFile(file))
+                                          .filter(file -> shouldMove(file, filter))
+                                          .toList();
+            long[] moved = new long[2];
+            sourceFiles.forEach(file -> count(moved, moveFile(file, sourcePath, targetPath, cartridgeName, context)));
+            recordMoved(cartridgeName, sourcePath, targetPath, moved, context);
+            if (!sourceFiles.isEmpty())
+            {
+                try
+                {
+                    FileUtils.removeEmptyDirectories(sourcePath);
+                }
+                catch(IOException ioe)
+                {
+                    logger.warn("Cannot remove empty folders of '{}': {}", sourcePath, ioe.getMessage());
+                }
+            }
+        }
+    }
+
+    // move a file of the source folder to the same relative path in the target folder, returns the size of the moved
+    // file or -1 if it wasn't moved
+    private long moveFile(Path file, Path sourcePath, Path targetPath, String cartridgeName, MigrationContext context)
+    {
+        try
+        {
+            Path relativePath = sourcePath.relativize(file);
+            Path destination = targetPath.resolve(relativePath);
+            long size = Files.size(file);
+            Files.createDirectories(destination.getParent());
+            Files.move(file, destination);
+
+            logger.debug("Moved file {} to {}.", file, destination);
+            return size;
+        }
+        catch (IOException e)
+        {
+            logger.error("An error occurred while moving file " + file + " to " + targetPath + ": " + e.getMessage(), e);
+            context.recordFailure(cartridgeName, MOVE, file, null, "Cannot move file: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // count a moved file and its size
+    private static void count(long[] moved, long size)
+    {
+        if (size >= 0)
+        {
+            moved[0]++;
+            moved[1] += size;
+        }
+    }
+
+    // record the moved files of a folder as one operation
+    private static void recordMoved(String cartridgeName, Path sourcePath, Path targetPath, long[] moved, MigrationContext context)
+    {
+        if (moved[0] > 0)
+        {
+            context.recordAggregate(cartridgeName, MOVE, sourcePath, targetPath, moved[0], moved[1]);
         }
     }
 
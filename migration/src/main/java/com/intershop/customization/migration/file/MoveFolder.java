@@ -66,6 +66,12 @@ public class MoveFolder implements MigrationPreparer
         this.targetConfiguration = step.getOption(YAML_KEY_TARGET_MAP);
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path cartridgeDir, MigrationContext context)
     {
@@ -74,6 +80,7 @@ public class MoveFolder implements MigrationPreparer
 
         for (Map.Entry<String, String> sourceEntry : sourceConfiguration.entrySet())
         {
+            context.getCancellationToken().throwIfCancelled();
             String artifactName = sourceEntry.getKey();
             Path sourcePath = cartridgeDir.resolve(sourceEntry.getValue().replace(PLACEHOLDER_CARTRIDGE_NAME, cartridgeName));
             if (!sourcePath.toFile().exists())
@@ -148,14 +155,14 @@ public class MoveFolder implements MigrationPreparer
             {
                 LOGGER.info("Removing empty staticfiles directory in cartridge {}", cartridgeName);
 
-                // Delete all content recursively, then the directory itself
+                // Delete all content recursively, then the directory itself. The directory doesn't contain files,
+                // so it is recorded as one operation, only failures are recorded per subdirectory.
                 try (var pathStream = Files.walk(staticFilesDir))
                 {
                     pathStream.sorted(Comparator.reverseOrder()).forEach(path -> {
                         try
                         {
                             Files.delete(path);
-                            context.recordSuccess(cartridgeName, DELETE, path, null);
                         }
                         catch (IOException e)
                         {
@@ -165,6 +172,10 @@ public class MoveFolder implements MigrationPreparer
                         }
                     });
                 }
+                if (!Files.exists(staticFilesDir))
+                {
+                    context.recordSuccess(cartridgeName, DELETE, staticFilesDir, null);
+                }
             }
             else
             {
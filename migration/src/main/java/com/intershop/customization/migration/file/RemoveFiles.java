@@ -96,6 +96,12 @@ public class RemoveFiles implements MigrationPreparer
         rootRegexPattern.forEach(pattern -> deleteByPattern(projectRoot, YAML_KEY_REGEX, pattern, context));
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path cartridgeDir, MigrationContext context)
     {
@@ -106,31 +112,27 @@ public class RemoveFiles implements MigrationPreparer
         regexPattern.forEach(pattern -> deleteByPattern(cartridgeDir, YAML_KEY_REGEX, pattern, context));
     }
 
-    private void deleteByPattern(Path cartridgeDir, String patternType, String pattern, MigrationContext context)
+    @Override
+    public boolean isFileScoped()
     {
-        String cartridgeName = getResourceName(cartridgeDir);
-        LOGGER.debug("Deleting files with '{}' pattern '{}'", patternType, pattern);
+        return true;
+    }
 
-        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(patternType + ":" + pattern);
+    @Override
+    public void migrateFiles(Path cartridgeDir, List<Path> files, MigrationContext context)
+    {
+        // only files directly located in the cartridge are deleted
+        List<Path> candidates = files.stream().filter(file -> cartridgeDir.equals(file.getParent())).toList();
+        globPattern.forEach(pattern -> deleteByPattern(cartridgeDir, candidates.stream(), YAML_KEY_GLOB, pattern, context));
+        regexPattern.forEach(pattern -> deleteByPattern(cartridgeDir, candidates.stream(), YAML_KEY_REGEX, pattern, context));
+    }
 
+    private void deleteByPattern(Path cartridgeDir, String patternType, String pattern, MigrationContext context)
+    {
+        String cartridgeName = getResourceName(cartridgeDir);
         try (Stream<Path> pathStream = Files.list(cartridgeDir))
         {
-            pathStream
-                .filter(Files::isRegularFile)
-                .filter(path -> matcher.matches(path.getFileName()))
-                .forEach(file -> {
-                    try
-                    {
-                        Files.delete(file);
-                        context.recordSuccess(cartridgeName, DELETE, file, null);
-                    }
-                    catch (IOException e)
-                    {
-                        LOGGER.error("Error while deleting file '{}': {}", file, e.getMessage());
-                        context.recordFailure(cartridgeName, DELETE, file, null,
-                                "Error while deleting file: " + e.getMessage());
-                    }
-                });
+            deleteByPattern(cartridgeDir, pathStream, patternType, pattern, context);
         }
         catch (IOException e)
         {
@@ -139,4 +141,28 @@ public class RemoveFiles implements MigrationPreparer
                     "Error while resolving files of '" + cartridgeDir + "': " + e.getMessage());
         }
     }
+
+    private void deleteByPattern(Path cartridgeDir, Stream<Path> files, String patternType, String pattern, MigrationContext context)
+    {
+        String cartridgeName = getResourceName(cartridgeDir);
+        LOGGER.debug("Deleting files with '{}' pattern '{}'", patternType, pattern);
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(patternType + ":" + pattern);
+
+        files.filter(Files::isRegularFile)
+             .filter(path -> matcher.matches(path.getFileName()))
+             .forEach(file -> {
+                 try
+                 {
+                     Files.delete(file);
+                     context.recordSuccess(cartridgeName, DELETE, file, null);
+                 }
+                 catch (IOException e)
+                 {
+                     LOGGER.error("Error while deleting file '{}': {}", file, e.getMessage());
+                     context.recordFailure(cartridgeName, DELETE, file, null,
+                             "Error while deleting file: " + e.getMessage());
+                 }
+             });
+    }
 }
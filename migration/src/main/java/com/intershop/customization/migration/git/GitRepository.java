@@ -3,11 +3,25 @@ package com.intershop.customization.migration.git;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.RmCommand;
+import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.eclipse.jgit.api.Git;
@@ -17,6 +31,7 @@ public class GitRepository implements Closeable
     private static final Logger LOGGER = LoggerFactory.getLogger(GitRepository.class);
 
     private final File repositoryDirectory;
+    private final String projectPrefix;
     private final Git git;
 
     public GitRepository(File projectDirectory, int maxRepoSearchDepth) throws GitInitializationException
@@ -40,6 +55,7 @@ public class GitRepository implements Closeable
                 throw new GitInitializationException("No git repository found in project dir '" + projectDirectory + "' or parent directories.", null);
             }
             this.repositoryDirectory = repository.getDirectory();
+            this.projectPrefix = getProjectPrefix(repository, projectDirectory);
             this.git = new Git(repository);
         }
         catch(IOException e)
@@ -79,6 +95,138 @@ public class GitRepository implements Closeable
         }
     }
 
+    /**
+     * Commits only the changed files accepted by the given filter. Other changes remain untouched in the working tree,
+     * so they can be committed separately later on.
+     *
+     * @param message the commit message to use for the commit
+     * @param pathFilter filter for the changed paths, which are given relative to the project directory using '/' as
+     *                   separator
+     * @return the SHA-1 hash of the commit or null if nothing was committed or the commit failed. See error log for
+     *         reason.
+     */
+    public String commit(String message, Predicate<String> pathFilter)
+    {
+        String authorName = git.getRepository().getConfig().getString("user", null, "name");
+        String authorEmail = git.getRepository().getConfig().getString("user", null, "email");
+
+        if (authorName == null || authorEmail == null)
+        {
+            LOGGER.error("Author name or email not configured in git repository at {}. Committing changes not possible.", repositoryDirectory);
+            return null;
+        }
+
+        try
+        {
+            Status status = git.status().call();
+            Set<String> added = new TreeSet<>(status.getModified());
+            added.addAll(status.getUntracked());
+            Set<String> removed = new TreeSet<>(status.getMissing());
+
+            AddCommand addCommand = git.add();
+            RmCommand rmCommand = git.rm().setCached(true);
+            boolean staged = stage(added, pathFilter, addCommand::addFilepattern);
+            boolean unstaged = stage(removed, pathFilter, rmCommand::addFilepattern);
+            if (!staged && !unstaged)
+            {
+                return null;
+            }
+            if (staged)
+            {
+                addCommand.call();
+            }
+            if (unstaged)
+            {
+                rmCommand.call();
+            }
+            RevCommit revCommit = git.commit().setMessage(message).call();
+            return revCommit.getId().getName();
+        }
+        catch(GitAPIException e)
+        {
+            LOGGER.error("Error while committing changes to git repository at {}.", repositoryDirectory, e);
+            return null;
+        }
+    }
+
+    private boolean stage(Set<String> paths, Predicate<String> pathFilter, Consumer<String> stager)
+    {
+        boolean result = false;
+        for (String path : paths)
+        {
+            if (path.startsWith(projectPrefix) && pathFilter.test(path.substring(projectPrefix.length())))
+            {
+                stager.accept(path);
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    // path of the project directory relative to the work tree, ending with '/' if not empty
+    private static String getProjectPrefix(Repository repository, File projectDirectory)
+    {
+        if (repository.isBare())
+        {
+            return "";
+        }
+        Path workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+        Path project = projectDirectory.toPath().toAbsolutePath().normalize();
+        String prefix = workTree.relativize(project).toString().replace(File.separatorChar, '/');
+        return prefix.isEmpty() ? prefix : prefix + "/";
+    }
+
+    /**
+     * Determines the files of the project, which were added or modified since the given revision. Changes of the
+     * working tree, which are not committed yet, are included. Deleted files are not included.
+     *
+     * @param revision the revision to compare with, e.g. a commit id, branch or tag name
+     * @return the changed paths relative to the project directory using '/' as separator
+     */
+    public Set<String> getChangedFiles(String revision)
+    {
+        Repository repository = git.getRepository();
+        try (ObjectReader reader = repository.newObjectReader(); RevWalk walk = new RevWalk(reader))
+        {
+            ObjectId since = repository.resolve(revision + "^{commit}");
+            ObjectId head = repository.resolve(Constants.HEAD + "^{commit}");
+            if (since == null || head == null)
+            {
+                throw new IllegalArgumentException("Unknown revision '" + revision + "' in git repository at " + repositoryDirectory + ".");
+            }
+
+            Set<String> changed = new TreeSet<>();
+            CanonicalTreeParser sinceTree = new CanonicalTreeParser(null, reader, walk.parseCommit(since).getTree());
+            CanonicalTreeParser headTree = new CanonicalTreeParser(null, reader, walk.parseCommit(head).getTree());
+            for (DiffEntry entry : git.diff().setOldTree(sinceTree).setNewTree(headTree).setShowNameAndStatusOnly(true).call())
+            {
+                if (entry.getChangeType() != DiffEntry.ChangeType.DELETE)
+                {
+                    changed.add(entry.getNewPath());
+                }
+            }
+            Status status = git.status().call();
+            changed.addAll(status.getAdded());
+            changed.addAll(status.getChanged());
+            changed.addAll(status.getModified());
+            changed.addAll(status.getUntracked());
+
+            Set<String> result = new TreeSet<>();
+            for (String path : changed)
+            {
+                if (path.startsWith(projectPrefix))
+                {
+                    result.add(path.substring(projectPrefix.length()));
+                }
+            }
+            return result;
+        }
+        catch(IOException | GitAPIException e)
+        {
+            throw new IllegalStateException("Can't determine files changed since '" + revision + "' in git repository at " + repositoryDirectory + ".", e);
+        }
+    }
+
     /**
      * Checks if the Git status is clean. Means there are no uncommitted changes or untracked files in the git repository.
      * @return true if status is clean (no uncommitted changes or untracked files), false otherwise
@@ -34,6 +34,12 @@ public class AddSiteContentPreparer implements MigrationPreparer
 
     private static final String LINE_SEP = System.lineSeparator();
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path projectDir, MigrationContext context)
     {
@@ -0,0 +1,31 @@
+package com.intershop.customization.migration.gradle;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationPreparer;
+
+/**
+ * Preparer migrating the 'build.gradle' file of a cartridge only. It is file scoped, a cartridge is migrated again
+ * if its 'build.gradle' file is changed.
+ */
+public interface BuildGradlePreparer extends MigrationPreparer
+{
+    String BUILD_GRADLE = "build.gradle";
+
+    @Override
+    default boolean isFileScoped()
+    {
+        return true;
+    }
+
+    @Override
+    default void migrateFiles(Path projectDir, List<Path> files, MigrationContext context)
+    {
+        if (files.contains(projectDir.resolve(BUILD_GRADLE)))
+        {
+            migrate(projectDir, context);
+        }
+    }
+}
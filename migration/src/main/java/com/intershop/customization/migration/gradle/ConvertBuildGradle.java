@@ -14,7 +14,6 @@ import java.util.Set;
 import java.util.function.Predicate;
 
 import com.intershop.customization.migration.common.MigrationContext;
-import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.common.Position;
 import com.intershop.customization.migration.utils.FileUtils;
 import org.slf4j.Logger;
@@ -30,7 +29,7 @@ import org.slf4j.LoggerFactory;
  * message: "refactor: adapt plugins in build.gradle"
  * </pre>
  */
-public class ConvertBuildGradle implements MigrationPreparer
+public class ConvertBuildGradle implements BuildGradlePreparer
 {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
     private static final String START_DEPENDENCIES = "dependencies";
@@ -77,6 +76,12 @@ public class ConvertBuildGradle implements MigrationPreparer
                     "test-cartridge", Arrays.asList("com.intershop.icm.cartridge.test", "java")
                     );
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path projectDir, MigrationContext context)
     {
@@ -8,7 +8,6 @@ import java.util.Collections;
 import java.util.List;
 
 import com.intershop.customization.migration.common.MigrationContext;
-import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.common.MigrationStep;
 import com.intershop.customization.migration.common.Position;
 import com.intershop.customization.migration.utils.FileUtils;
@@ -29,7 +28,7 @@ import org.slf4j.LoggerFactory;
  *   - com.intershop.business
  * </pre>
  */
-public class ConvertToCartridgeDependency implements MigrationPreparer
+public class ConvertToCartridgeDependency implements BuildGradlePreparer
 {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
 
@@ -45,6 +44,12 @@ public class ConvertToCartridgeDependency implements MigrationPreparer
         this.cartridgeDependencies = step.getOption(YAML_KEY_CARTRIDGE_DEPENDENCY);
     }
     
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path projectDir, MigrationContext context)
     {
@@ -4,14 +4,15 @@ import static com.intershop.customization.migration.common.MigrationContext.Oper
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.function.BiFunction;
 
+import com.intershop.customization.migration.common.CancellationToken;
+import com.intershop.customization.migration.common.MigrationCancelledException;
 import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.ResourceCache;
 import com.intershop.customization.migration.utils.OsCheck;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +47,12 @@ public class ConvertToKotlin implements MigrationPreparer
         }
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path resource, MigrationContext context)
     {
@@ -57,7 +64,7 @@ public class ConvertToKotlin implements MigrationPreparer
 
         try
         {
-            String scriptOutput = executeKotlinScript(resource);
+            String scriptOutput = executeKotlinScript(resource, context.getCancellationToken());
             context.recordSuccess(resourceName, MODIFY, resource, resource);
             LOGGER.debug("Script output collected: {}", scriptOutput);
         }
@@ -89,7 +96,7 @@ public class ConvertToKotlin implements MigrationPreparer
         try
         {
             return executeKotlinProcess(
-                            new String[] { getKotlinExecutable(), "-version" },
+                            new String[] { getKotlinExecutable(), "-version" }, CancellationToken.NONE,
                             (exitCode, output) -> {
                                 if (exitCode == 0)
                                 {
@@ -114,15 +121,17 @@ public class ConvertToKotlin implements MigrationPreparer
      * Executes the Kotlin script to convert the given Gradle build file of the given path.
      *
      * @param resource the path of the parent directory to the Gradle build file to convert
+     * @param cancellationToken destroys the Kotlin process, if the migration is cancelled
      * @return the collected output
      * @throws IOException unhandled possible IO exception
      * @throws InterruptedException unhandled possible interruption exception
      */
-    private String executeKotlinScript(Path resource) throws IOException, InterruptedException
+    private String executeKotlinScript(Path resource, CancellationToken cancellationToken) throws IOException, InterruptedException
     {
         Path scriptPath = getKotlinScriptPath();
         return executeKotlinProcess(
                         new String[] { getKotlinExecutable(), scriptPath.toString(), resource.toString(), "skipintro", "deleteInputFile" },
+                        cancellationToken,
                         (exitCode, output) -> {
                             if (exitCode != 0)
                             {
@@ -137,13 +146,16 @@ public class ConvertToKotlin implements MigrationPreparer
      * Convenience method to execute a Kotlin process with the given command and process the output.
      *
      * @param command array of command line arguments to execute the Kotlin process
+     * @param cancellationToken destroys the Kotlin process, if the migration is cancelled
      * @param outputProcessor a bi-function that processes the output of the Kotlin process.
      * @return the result of the handed in bi-function
      * @param <T> expected return type of the output processor
      * @throws IOException unhandled possible IO exception
      * @throws InterruptedException unhandled possible interruption exception
+     * @throws MigrationCancelledException if the migration was cancelled
      */
-    private <T> T executeKotlinProcess(String[] command, BiFunction<Integer, String, T> outputProcessor) throws IOException, InterruptedException
+    private <T> T executeKotlinProcess(String[] command, CancellationToken cancellationToken,
+                    BiFunction<Integer, String, T> outputProcessor) throws IOException, InterruptedException
     {
         ProcessBuilder processBuilder = new ProcessBuilder(command);
         processBuilder.redirectErrorStream(true);
@@ -151,39 +163,49 @@ public class ConvertToKotlin implements MigrationPreparer
         Process process = processBuilder.start();
         StringBuilder output = new StringBuilder();
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream())))
+        // destroying the process (the kotlin launcher starts a JVM) ends its output, so reading and waiting return
+        Runnable unregister = cancellationToken.onCancel(() -> {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        });
+        int exitCode;
+        try
         {
-            String line;
-            while ((line = reader.readLine()) != null)
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream())))
             {
-                output.append(line).append(System.lineSeparator());
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    output.append(line).append(System.lineSeparator());
+                }
             }
+            exitCode = process.waitFor();
         }
-
-        int exitCode = process.waitFor();
+        finally
+        {
+            unregister.run();
+        }
+        cancellationToken.throwIfCancelled();
         return outputProcessor.apply(exitCode, output.toString().trim());
     }
 
     /**
      * Helper function to resolve the script in the classpath and convert to a usable the path
-     * to hand over to the Kotlin executable.
+     * to hand over to the Kotlin executable. The script is extracted once into the {@link ResourceCache}, so all
+     * cartridges and later migrations use the same file and the Kotlin script host can reuse its compiled script.
      *
-     * @return temporary path a copy of the Kotlin script
+     * @return path of the extracted Kotlin script
      * @throws IOException unhandled possible IO exception
      */
     private Path getKotlinScriptPath() throws IOException
     {
-        try (InputStream scriptStream = getClass().getClassLoader().getResourceAsStream(GRADLE_KOTLIN_CONVERTER))
+        try
         {
-            if (scriptStream == null)
-            {
-                throw new IOException("Kotlin script '" + GRADLE_KOTLIN_CONVERTER + "' not found in classpath.");
-            }
-
-            Path tempScript = Files.createTempFile("gradle_kotlin_converter", ".kts");
-            Files.copy(scriptStream, tempScript, StandardCopyOption.REPLACE_EXISTING);
-            tempScript.toFile().deleteOnExit(); // Remove the temp file on exit
-            return tempScript;
+            return ResourceCache.getResource(GRADLE_KOTLIN_CONVERTER);
+        }
+        catch (NoSuchFileException e)
+        {
+            throw new IOException("Kotlin script '" + GRADLE_KOTLIN_CONVERTER + "' not found in classpath.", e);
         }
     }
 }
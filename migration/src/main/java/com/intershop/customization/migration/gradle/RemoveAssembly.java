@@ -11,7 +11,6 @@ import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import com.intershop.customization.migration.common.MigrationContext;
-import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.utils.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,10 +27,16 @@ import org.slf4j.LoggerFactory;
  * message: "refactor: remove assembly projects"
  * </pre>
  */
-public class RemoveAssembly implements MigrationPreparer
+public class RemoveAssembly implements BuildGradlePreparer
 {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path projectDir, MigrationContext context)
     {
@@ -56,21 +61,29 @@ public class RemoveAssembly implements MigrationPreparer
     }
 
     /**
-     * Deletes the entire given directory.
+     * Deletes the entire given directory. The deleted files are recorded as one aggregate operation, files which
+     * can't be deleted are recorded separately.
      * @param directory directory to delete
      */
     protected void deleteAssembly(Path directory, MigrationContext context)
     {
         String projectName = getResourceName(directory);
+        long[] deleted = new long[2];
 
         try
         {
             Consumer<Path> removeConsumer = p -> {
                 try
                 {
+                    boolean isFile = Files.isRegularFile(p);
+                    long size = isFile ? Files.size(p) : 0;
                     Files.delete(p);
                     LOGGER.debug("Deleted: {}", p);
-                    context.recordSuccess(projectName, DELETE, p, null);
+                    if (isFile)
+                    {
+                        deleted[0]++;
+                        deleted[1] += size;
+                    }
                 }
                 catch(IOException e)
                 {
@@ -80,6 +93,11 @@ public class RemoveAssembly implements MigrationPreparer
             };
             FileUtils.listFiles(directory, null, Comparator.reverseOrder())
                             .forEach(removeConsumer);
+            // a failed traversal leaves the directory, so only a completed one is recorded
+            if (deleted[0] > 0)
+            {
+                context.recordAggregate(projectName, DELETE, directory, null, deleted[0], deleted[1]);
+            }
         }
         catch(IOException e)
         {
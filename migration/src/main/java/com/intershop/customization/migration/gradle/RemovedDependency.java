@@ -8,7 +8,6 @@ import java.util.Collections;
 import java.util.List;
 
 import com.intershop.customization.migration.common.MigrationContext;
-import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.common.MigrationStep;
 import com.intershop.customization.migration.common.Position;
 import com.intershop.customization.migration.utils.FileUtils;
@@ -29,7 +28,7 @@ import org.slf4j.LoggerFactory;
  *   - com.intershop.business:ac_inventory_service
  * </pre>
  */
-public class RemovedDependency implements MigrationPreparer
+public class RemovedDependency implements BuildGradlePreparer
 {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
 
@@ -39,6 +38,12 @@ public class RemovedDependency implements MigrationPreparer
 
     private List<String> removedDependencies = Collections.emptyList();
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path projectDir, MigrationContext context)
     {
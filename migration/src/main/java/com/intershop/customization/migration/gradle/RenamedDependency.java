@@ -12,7 +12,6 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.intershop.customization.migration.common.MigrationContext;
-import com.intershop.customization.migration.common.MigrationPreparer;
 import com.intershop.customization.migration.common.MigrationStep;
 import com.intershop.customization.migration.common.Position;
 import com.intershop.customization.migration.utils.FileUtils;
@@ -34,7 +33,7 @@ import org.slf4j.LoggerFactory;
  *     commons-lang:commons-lang: org.apache.commons:commons-lang3
  * </pre>
  */
-public class RenamedDependency implements MigrationPreparer
+public class RenamedDependency implements BuildGradlePreparer
 {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
 
@@ -44,6 +43,12 @@ public class RenamedDependency implements MigrationPreparer
 
     private Map<String, String> renamedDependencies = Collections.emptyMap();
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path projectDir, MigrationContext context)
     {
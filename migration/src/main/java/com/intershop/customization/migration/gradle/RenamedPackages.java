@@ -79,6 +79,12 @@ public class RenamedPackages implements MigrationPreparer
         return value;
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     @Override
     public void migrate(Path resource, MigrationContext context)
     {
@@ -95,6 +101,21 @@ public class RenamedPackages implements MigrationPreparer
         fileList.forEach(filePath -> processFile(filePath, resource, context));
     }
 
+    @Override
+    public boolean isFileScoped()
+    {
+        return true;
+    }
+
+    @Override
+    public void migrateFiles(Path resource, List<Path> files, MigrationContext context)
+    {
+        Path srcDir = resource.resolve("src");
+        files.stream()
+             .filter(filePath -> filePath.startsWith(srcDir) && Files.isRegularFile(filePath) && validateFileExtension(filePath))
+             .forEach(filePath -> processFile(filePath, resource, context));
+    }
+
     // get all files in the src directory and its subdirectories
     // based on the list of allowed file extensions
     protected List<Path> getFileList(Path dir)
@@ -56,7 +56,11 @@ public class ConfigurationXMLBuilder {
     
         footerLines.add("\t</sets>");
         footerLines.add("</configuration-setup>");
-        
+    }
+
+    // static mappings are shared by all builders, so initialize them once (builders are used by parallel cartridges)
+    static
+    {
         // environments
         environments.put("development",     PLACEHOLDER_ENVIRONMENT);        
         environments.put("integration",     PLACEHOLDER_ENVIRONMENT);        
@@ -66,7 +70,6 @@ public class ConfigurationXMLBuilder {
         // staging system types
         systemTypes.put("editing",  PLACEHOLDER_STAGING_SYSTEM_TYPE);
         systemTypes.put("live",     PLACEHOLDER_STAGING_SYSTEM_TYPE);
-    
     }
 
     /**
@@ -21,6 +21,12 @@ public class MigrateConfigResources implements MigrationPreparer
 
     public static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(MigrateConfigResources.class);
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+
     /**
      * Migrates a resource with context tracking.
      * It allows recording success, failures, and other metrics.<br/>
@@ -58,6 +64,7 @@ public class MigrateConfigResources implements MigrationPreparer
                      .map(p -> p.subpath(1 + staticFilesFolder.getNameCount(), p.getNameCount()))
                      .filter(this::shouldMigrate)
                      .forEach(p -> {
+                         context.getCancellationToken().throwIfCancelled();
                          try
                          {
                              Path source = path.resolve(p);
@@ -0,0 +1,73 @@
+package com.intershop.customization.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.intershop.customization.migration.common.MigrationStep;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchMigratorTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadManifest() throws IOException
+    {
+        Path manifest = tempDir.resolve("repositories.txt");
+        Files.writeString(manifest, String.join("\n", "# customer projects", "customer_a", "", "  customer_b  "));
+
+        List<File> repositories = BatchMigrator.readManifest(manifest);
+
+        assertEquals(List.of(tempDir.resolve("customer_a").toFile(), tempDir.resolve("customer_b").toFile()), repositories);
+    }
+
+    @Test
+    void testMigrateAll() throws IOException
+    {
+        File customerA = createProject("customer_a");
+        File customerB = createProject("customer_b");
+        File missing = tempDir.resolve("missing").toFile();
+
+        Path stepFile = tempDir.resolve("010_batch.yml");
+        Files.writeString(stepFile, String.join("\n",
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + MigratorTest.RecordingPreparer.class.getName(),
+                        "message: \"test: batch\"",
+                        "options:",
+                        "  name: batch"));
+        MigrationStep step = MigrationStep.valueOf(stepFile);
+        MigratorTest.RecordingPreparer.EXECUTIONS.clear();
+
+        BatchMigrator underTest = new BatchMigrator(List.of(step), new String[] { "--noAutoCommit", "--concurrentRepositories=2",
+                        "--stateDir=" + tempDir.resolve("state") });
+        List<BatchMigrator.RepositoryResult> results = underTest.migrateAll(List.of(customerA, customerB, missing));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccessful(), results.get(0).error());
+        assertTrue(results.get(1).isSuccessful());
+        assertFalse(results.get(2).isSuccessful());
+        assertNotNull(results.get(0).context());
+        assertTrue(MigratorTest.RecordingPreparer.EXECUTIONS.get("batch").contains("app_a"));
+
+        String report = BatchMigrator.generateSummaryReport(results);
+        assertTrue(report.startsWith("Batch Migration Report: 3 repositories (2 migrated, 1 aborted)"), report);
+        assertTrue(report.contains("Repository '" + missing + "': aborted (not a directory)"), report);
+    }
+
+    private File createProject(String name) throws IOException
+    {
+        Path project = Files.createDirectory(tempDir.resolve(name));
+        Files.createFile(Files.createDirectory(project.resolve("app_a")).resolve("build.gradle"));
+        return project.toFile();
+    }
+}
@@ -0,0 +1,484 @@
+package com.intershop.customization.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.execution.NameSelector;
+import com.intershop.customization.migration.file.MoveFilteredFolder;
+import com.intershop.customization.migration.file.RemoveFiles;
+import com.intershop.customization.migration.gradle.RenamedPackages;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MigratorTest
+{
+    private static final List<String> CARTRIDGES = List.of("app_a", "app_b", "app_c", "app_d", "app_e");
+
+    private Path tempDir;
+    private Path rootProject;
+    private Path stepsDir;
+    private Path stateDir;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("migrator-test");
+        rootProject = Files.createDirectory(tempDir.resolve("project"));
+        stepsDir = Files.createDirectory(tempDir.resolve("steps"));
+        stateDir = tempDir.resolve("state");
+        for (String cartridge : CARTRIDGES)
+        {
+            Path cartridgeDir = Files.createDirectory(rootProject.resolve(cartridge));
+            Files.createFile(cartridgeDir.resolve("build.gradle"));
+        }
+        Files.createDirectory(rootProject.resolve("no_cartridge"));
+        RecordingPreparer.EXECUTIONS.clear();
+        RecordingPreparer.ORDER.clear();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        try (Stream<Path> streams = Files.walk(tempDir))
+        {
+            streams.sorted(Comparator.reverseOrder())
+                   .forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void testSequentialMigration() throws IOException
+    {
+        writeStep("010_first.yml", "first");
+        writeStep("020_second.yml", "second");
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        underTest.migrateProjects(rootProject.toFile());
+
+        assertEquals(Set.copyOf(CARTRIDGES), RecordingPreparer.EXECUTIONS.get("first"));
+        assertEquals(Set.copyOf(CARTRIDGES), RecordingPreparer.EXECUTIONS.get("second"));
+        // the progress is only recorded, if checkpoints are enabled, the durations are stored outside of the project
+        assertFalse(Files.exists(underTest.getStateFile(rootProject.toFile(), "journal")));
+        assertTrue(Files.exists(underTest.getStateFile(rootProject.toFile(), "costs")));
+        assertFalse(Files.exists(rootProject.resolve(".icm-migration.costs")));
+    }
+
+    @Test
+    void testParallelMigration() throws IOException
+    {
+        writeStep("010_first.yml", "first", RootRecordingPreparer.class);
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        underTest.setParallelism(3);
+        underTest.migrateProjects(rootProject.toFile());
+
+        assertEquals(Set.copyOf(CARTRIDGES), RecordingPreparer.EXECUTIONS.get("first"));
+        assertTrue(RecordingPreparer.EXECUTIONS.get("root").contains("first"));
+    }
+
+    @Test
+    void testCartridgeMajorMigration() throws IOException
+    {
+        writeStep("010_first.yml", "first");
+        writeStep("020_second.yml", "second");
+        writeStep("030_barrier.yml", "barrier", RootRecordingPreparer.class);
+        writeStep("040_third.yml", "third");
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        underTest.setCartridgeMajor(true);
+        underTest.migrateProjects(rootProject.toFile());
+
+        List<String> order = List.copyOf(RecordingPreparer.ORDER);
+        assertEquals(CARTRIDGES.size() * 4 + 1, order.size());
+        // first segment: both steps for one cartridge, before the next cartridge starts
+        assertEquals(order.get(0).replace("first", "second"), order.get(1));
+        // root migration of the barrier step after all cartridges finished the first segment
+        assertEquals("barrier:root", order.get(CARTRIDGES.size() * 2));
+        assertTrue(order.indexOf("third:app_a") > order.indexOf("barrier:root"));
+    }
+
+    @Test
+    void testScheduledMigration() throws IOException
+    {
+        writeStep("010_first.yml", "first");
+        writeStep("020_second.yml", "second");
+        writeStep("030_third.yml", "third", RootRecordingPreparer.class);
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        underTest.setConcurrentSteps(2);
+        underTest.migrateProjects(rootProject.toFile());
+
+        assertEquals(Set.copyOf(CARTRIDGES), RecordingPreparer.EXECUTIONS.get("first"));
+        assertEquals(Set.copyOf(CARTRIDGES), RecordingPreparer.EXECUTIONS.get("second"));
+        assertEquals(Set.copyOf(CARTRIDGES), RecordingPreparer.EXECUTIONS.get("third"));
+        // steps without footprint are executed one after another
+        assertTrue(RecordingPreparer.ORDER.indexOf("third:root") > RecordingPreparer.ORDER.lastIndexOf("second:app_e"));
+    }
+
+    @Test
+    void testResumeMigration() throws IOException
+    {
+        writeStep("010_first.yml", "first", RootRecordingPreparer.class);
+        writeStep("020_second.yml", "second", FailingPreparer.class);
+        writeStep("030_third.yml", "third");
+
+        FailingPreparer.failingCartridge = "app_c";
+        Migrator aborted = new Migrator(stepsDir.toFile());
+        aborted.initializeGitRepository(false, rootProject.toFile());
+        aborted.setStateDir(stateDir);
+        aborted.setCheckpoint(true);
+        assertThrows(IllegalStateException.class, () -> aborted.migrateProjects(rootProject.toFile()));
+        assertFalse(RecordingPreparer.EXECUTIONS.containsKey("third"));
+
+        FailingPreparer.failingCartridge = null;
+        Migrator resumed = new Migrator(stepsDir.toFile());
+        resumed.initializeGitRepository(false, rootProject.toFile());
+        resumed.setStateDir(stateDir);
+        resumed.setResume(true);
+        resumed.migrateProjects(rootProject.toFile());
+
+        // each step is applied exactly once to each cartridge
+        List<String> order = List.copyOf(RecordingPreparer.ORDER);
+        assertEquals(1, Collections.frequency(order, "first:root"));
+        assertEquals(CARTRIDGES.size(), order.stream().filter(o -> o.startsWith("first:")).count() - 1);
+        assertEquals(CARTRIDGES.size(), order.stream().filter(o -> o.startsWith("second:")).count());
+        assertEquals(CARTRIDGES.size(), order.stream().filter(o -> o.startsWith("third:")).count());
+        // the journal is stored outside of the project
+        assertTrue(Files.exists(resumed.getStateFile(rootProject.toFile(), "journal")));
+        assertTrue(resumed.getStateFile(rootProject.toFile(), "journal").startsWith(stateDir));
+        try (Stream<Path> files = Files.list(rootProject))
+        {
+            assertTrue(files.noneMatch(f -> f.getFileName().toString().contains("journal")));
+        }
+    }
+
+    @Test
+    void testSelectedMigration() throws IOException
+    {
+        writeStep("010_first.yml", "first");
+        writeStep("020_second.yml", "second", RootRecordingPreparer.class);
+        writeStep("030_third.yml", "third");
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        underTest.configure(new String[] { "projects", rootProject.toString(), stepsDir.toString(),
+                        "--onlySteps=0[23]0_*", "--onlyCartridges=app_a,app_c,app_x" });
+        underTest.migrateProjects(rootProject.toFile());
+
+        assertFalse(RecordingPreparer.EXECUTIONS.containsKey("first"));
+        assertEquals(Set.of("app_a", "app_c"), RecordingPreparer.EXECUTIONS.get("second"));
+        assertEquals(Set.of("app_a", "app_c"), RecordingPreparer.EXECUTIONS.get("third"));
+        // the root project isn't migrated, if cartridges are selected
+        assertFalse(RecordingPreparer.EXECUTIONS.containsKey("root"));
+
+        underTest.setCartridgeSelector(NameSelector.valueOf("app_[de]"));
+        assertEquals(List.of("app_d", "app_e"),
+                        underTest.listCartridgeDirs(rootProject.toFile()).stream().map(File::getName).sorted().toList());
+    }
+
+    @Test
+    void testCartridgeTimeout() throws IOException
+    {
+        writeStep("010_hanging.yml", "hanging", HangingPreparer.class);
+        Files.writeString(stepsDir.resolve("010_hanging.yml"), System.lineSeparator() + "cartridgeTimeout: 200ms",
+                        StandardOpenOption.APPEND);
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        underTest.setCheckpoint(true);
+        underTest.migrateProjects(rootProject.toFile());
+
+        // the hanging cartridge is cancelled and recorded as failed, the others are migrated
+        List<MigrationContext.Operation> operations = underTest.getContext().getOperations().get("app_b");
+        assertEquals(1, operations.size());
+        assertEquals(MigrationContext.OperationStatus.FAILED, operations.get(0).status());
+        assertTrue(operations.get(0).message().contains("exceeded its time budget of PT0.2S"), operations.get(0).message());
+        assertEquals(Set.of("app_a", "app_c", "app_d", "app_e"), RecordingPreparer.EXECUTIONS.get("hanging"));
+        assertFalse(Files.readString(underTest.getStateFile(rootProject.toFile(), "journal")).contains("app_b\tdone"));
+    }
+
+    @Test
+    void testMigrateChangedFiles() throws IOException
+    {
+        writeRemoveStep();
+        Path changed = Files.createFile(rootProject.resolve("app_a/changed.bak"));
+        Path unchanged = Files.createFile(rootProject.resolve("app_b/unchanged.bak"));
+        Path noCartridge = Files.createFile(rootProject.resolve("no_cartridge/changed.bak"));
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        List<MigrationStep> watchedSteps = underTest.getSteps().stream().filter(s -> s.getMigrator().isFileScoped()).toList();
+        underTest.migrateChangedFiles(rootProject.toFile(), watchedSteps, List.of(changed, noCartridge));
+
+        // only the changed file of the cartridge is migrated, steps which aren't file scoped are skipped
+        assertEquals(1, watchedSteps.size());
+        assertFalse(Files.exists(changed));
+        assertTrue(Files.exists(unchanged));
+        assertTrue(Files.exists(noCartridge));
+        assertTrue(RecordingPreparer.EXECUTIONS.isEmpty());
+    }
+
+    @Test
+    void testMigrateMovedFiles() throws IOException
+    {
+        writeMoveAndRenameSteps();
+        Path javasource = Files.createDirectories(rootProject.resolve("app_a/javasource/com/example"));
+        Path changed = Files.writeString(javasource.resolve("Servlet.java"), "import javax.servlet.http.HttpServlet;\n");
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        List<Path> migrated = underTest.migrateChangedFiles(rootProject.toFile(), underTest.getSteps(), List.of(changed));
+
+        // the rename step is applied to the file at the location it was moved to
+        Path moved = rootProject.resolve("app_a/src/main/java/com/example/Servlet.java").toAbsolutePath();
+        assertEquals(List.of(moved), migrated);
+        assertFalse(Files.exists(changed));
+        assertEquals("import jakarta.servlet.http.HttpServlet;\n", Files.readString(moved));
+    }
+
+    @Test
+    void testMigrateIncremental() throws Exception
+    {
+        writeRemoveStep();
+        Path committed = Files.createFile(rootProject.resolve("app_b/committed.bak"));
+        Path changed;
+        String since;
+        try (Git git = Git.init().setDirectory(rootProject.toFile()).call())
+        {
+            git.add().addFilepattern(".").call();
+            since = git.commit().setMessage("initial").setAuthor("test", "test@example.com")
+                       .setCommitter("test", "test@example.com").call().getName();
+            changed = Files.createFile(rootProject.resolve("app_a/changed.bak"));
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("rebased").setAuthor("test", "test@example.com")
+               .setCommitter("test", "test@example.com").call();
+        }
+        Path untracked = Files.createFile(rootProject.resolve("app_c/untracked.bak"));
+
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        underTest.initializeGitRepository(false, rootProject.toFile());
+        underTest.setStateDir(stateDir);
+        Set<String> changedFiles = underTest.getChangedFiles(rootProject.toFile(), since);
+        assertEquals(Set.of("app_a/changed.bak", "app_c/untracked.bak"), changedFiles);
+
+        underTest.migrateIncremental(rootProject.toFile(), changedFiles);
+        assertFalse(Files.exists(changed));
+        assertFalse(Files.exists(untracked));
+        assertTrue(Files.exists(committed));
+        assertTrue(RecordingPreparer.EXECUTIONS.isEmpty());
+    }
+
+    @Test
+    void testRunUncleanRepository() throws Exception
+    {
+        Path changed = Files.createFile(rootProject.resolve("app_a/changed.bak"));
+        try (Git git = Git.init().setDirectory(rootProject.toFile()).call())
+        {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setAuthor("test", "test@example.com")
+               .setCommitter("test", "test@example.com").call();
+        }
+        Files.writeString(changed, "changed");
+
+        String[] args = { "project", rootProject.toString(), stepsDir.toString() };
+        assertEquals(Migrator.STATUS_INVALID_REPOSITORY, Migrator.run(args, folder -> List.of()));
+        assertEquals("changed", Files.readString(changed));
+    }
+
+    @Test
+    void testHasRootMigration()
+    {
+        assertTrue(Migrator.hasRootMigration(new RootRecordingPreparer()));
+        assertFalse(Migrator.hasRootMigration(new RecordingPreparer()));
+    }
+
+    @Test
+    void testListCartridgeDirs()
+    {
+        Migrator underTest = new Migrator(stepsDir.toFile());
+        List<String> names = underTest.listCartridgeDirs(rootProject.toFile()).stream().map(File::getName).sorted().toList();
+        assertEquals(CARTRIDGES, names);
+    }
+
+    @Test
+    void testGetOptionValue()
+    {
+        String[] args = { "projects", "target", "steps", "--noAutoCommit", "--parallel=4" };
+        assertEquals("4", Migrator.getOptionValue(args, "--parallel").orElseThrow());
+        assertTrue(Migrator.getOptionValue(args, "--unknown").isEmpty());
+    }
+
+    private void writeStep(String fileName, String name) throws IOException
+    {
+        writeStep(fileName, name, RecordingPreparer.class);
+    }
+
+    private void writeStep(String fileName, String name, Class<? extends MigrationPreparer> migrator) throws IOException
+    {
+        Files.writeString(stepsDir.resolve(fileName), String.join(System.lineSeparator(),
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + migrator.getName(),
+                        "message: \"test: " + name + "\"",
+                        "options:",
+                        "  name: " + name));
+    }
+
+    // file scoped step removing *.bak files, followed by a step which isn't file scoped
+    private void writeRemoveStep() throws IOException
+    {
+        Files.writeString(stepsDir.resolve("010_remove.yml"), String.join(System.lineSeparator(),
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + RemoveFiles.class.getName(),
+                        "message: \"test: remove\"",
+                        "options:",
+                        "  sub-projects:",
+                        "    glob:",
+                        "    - \"*.bak\""));
+        writeStep("020_recording.yml", "recording");
+    }
+
+    // file scoped step moving java files to src/main/java, followed by a step renaming packages of src files
+    private void writeMoveAndRenameSteps() throws IOException
+    {
+        Files.writeString(stepsDir.resolve("010_move.yml"), String.join(System.lineSeparator(),
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + MoveFilteredFolder.class.getName(),
+                        "message: \"test: move\"",
+                        "options:",
+                        "  source-map:",
+                        "    java: javasource",
+                        "  target-map:",
+                        "    java: src/main/java",
+                        "  filter-map:",
+                        "    java: \".*\\\\.java$\""));
+        Files.writeString(stepsDir.resolve("020_rename.yml"), String.join(System.lineSeparator(),
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + RenamedPackages.class.getName(),
+                        "message: \"test: rename\"",
+                        "options:",
+                        "  package-map:",
+                        "    javax.servlet: jakarta.servlet",
+                        "  file-extension:",
+                        "    - java"));
+    }
+
+    /**
+     * Preparer recording the migrated cartridges by step name.
+     */
+    public static class RecordingPreparer implements MigrationPreparer
+    {
+        static final Map<String, Set<String>> EXECUTIONS = new ConcurrentHashMap<>();
+        static final List<String> ORDER = Collections.synchronizedList(new ArrayList<>());
+
+        protected String name;
+
+        @Override
+        public void setStep(MigrationStep step)
+        {
+            this.name = step.getOption("name");
+        }
+
+        @Override
+        public boolean isParallelizable()
+        {
+            return true;
+        }
+
+        @Override
+        public void migrate(Path resource, MigrationContext context)
+        {
+            EXECUTIONS.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).add(getResourceName(resource));
+            ORDER.add(name + ":" + getResourceName(resource));
+            context.recordSuccess(getResourceName(resource), MigrationContext.OperationType.MODIFY, resource, resource);
+        }
+    }
+
+    /**
+     * Recording preparer, which fails for one cartridge.
+     */
+    public static class FailingPreparer extends RecordingPreparer
+    {
+        static volatile String failingCartridge;
+
+        @Override
+        public void migrate(Path resource, MigrationContext context)
+        {
+            if (getResourceName(resource).equals(failingCartridge))
+            {
+                throw new IllegalStateException("Migration of " + failingCartridge + " failed");
+            }
+            super.migrate(resource, context);
+        }
+    }
+
+    /**
+     * Recording preparer, which hangs for one cartridge until it is cancelled.
+     */
+    public static class HangingPreparer extends RecordingPreparer
+    {
+        @Override
+        public void migrate(Path resource, MigrationContext context)
+        {
+            if (getResourceName(resource).equals("app_b"))
+            {
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (System.currentTimeMillis() < deadline)
+                {
+                    context.getCancellationToken().throwIfCancelled();
+                    try
+                    {
+                        Thread.sleep(10);
+                    }
+                    catch(InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            super.migrate(resource, context);
+        }
+    }
+
+    /**
+     * Recording preparer, which additionally migrates the root project.
+     */
+    public static class RootRecordingPreparer extends RecordingPreparer
+    {
+        @Override
+        public void migrateRoot(Path resource, MigrationContext context)
+        {
+            EXECUTIONS.computeIfAbsent("root", k -> ConcurrentHashMap.newKeySet()).add(name);
+            ORDER.add(name + ":root");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
+import org.junit.jupiter.api.Test;
+
+class CompactOperationStoreTest
+{
+    @Test
+    void testAddAndRead()
+    {
+        CompactOperationStore underTest = new CompactOperationStore();
+        List<Operation> operations = List.of(
+                        new Operation(OperationType.MOVE, Path.of("app_a/javasource/A.java"), Path.of("app_a/src/main/java/A.java"), OperationStatus.SUCCESS, null),
+                        new Operation(OperationType.DELETE, Path.of("build.gradle"), null, OperationStatus.FAILED, "locked"),
+                        new Operation(OperationType.CREATE, null, Path.of("app_a/src/main/java/A.java"), OperationStatus.SKIPPED, "exists"),
+                        new Operation(OperationType.MODIFY, Path.of("/"), Path.of("/tmp/project/app_a"), OperationStatus.WARNING, "check"));
+        operations.forEach(op -> assertTrue(underTest.add("app_a", op)));
+
+        List<Operation> read = new ArrayList<>();
+        List<String> projects = new ArrayList<>();
+        underTest.forEach((project, op) -> {
+            projects.add(project);
+            read.add(op);
+        });
+        assertEquals(List.of("app_a", "app_a", "app_a", "app_a"), projects);
+        for (int i = 0; i < operations.size(); i++)
+        {
+            assertEquals(operations.get(i).source(), read.get(i).source());
+            assertEquals(operations.get(i).target(), read.get(i).target());
+            assertEquals(operations.get(i).message(), read.get(i).message());
+            assertEquals(operations.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void testDeduplication()
+    {
+        CompactOperationStore underTest = new CompactOperationStore();
+        for (int i = 0; i < 5000; i++)
+        {
+            Path file = Path.of("app_a", "javasource", "File" + i + ".java");
+            assertTrue(underTest.add("app_a", new Operation(OperationType.MOVE, file, null, OperationStatus.SUCCESS, "moved")));
+            assertTrue(underTest.add("app_b", new Operation(OperationType.MOVE, file, null, OperationStatus.SUCCESS, "moved")));
+        }
+        // equal operations differ in the message only
+        assertFalse(underTest.add("app_a", new Operation(OperationType.MOVE, Path.of("app_a/javasource/File7.java"), null,
+                        OperationStatus.SUCCESS, "moved again")));
+        assertTrue(underTest.add("app_a", new Operation(OperationType.MOVE, Path.of("app_a/javasource/File7.java"), null,
+                        OperationStatus.SKIPPED, "moved")));
+        assertEquals(10001, underTest.size());
+    }
+
+    @Test
+    void testOperationHashCode()
+    {
+        Operation operation = new Operation(OperationType.DELETE, Path.of("build.gradle"), null, OperationStatus.FAILED, "locked");
+        Operation other = new Operation(OperationType.DELETE, Path.of("build.gradle"), null, OperationStatus.FAILED, "still locked");
+        assertEquals(operation, other);
+        assertEquals(operation.hashCode(), other.hashCode());
+    }
+}
@@ -0,0 +1,106 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalOperationStoreTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAddAndRead() throws IOException
+    {
+        JournalOperationStore underTest = new JournalOperationStore(tempDir.resolve("operations"));
+        Operation move = new Operation(OperationType.MOVE, Path.of("app_a/javasource"), Path.of("app_a/src/main/java"),
+                        OperationStatus.SUCCESS, null);
+        Operation delete = new Operation(OperationType.DELETE, Path.of("app_a/build.gradle"), null,
+                        OperationStatus.FAILED, "locked");
+
+        assertTrue(underTest.add("app_a", move));
+        assertTrue(underTest.add("app_a", delete));
+        assertTrue(underTest.add("app_b", move));
+        // equal operations differ in the message only
+        assertFalse(underTest.add("app_a", new Operation(OperationType.DELETE, Path.of("app_a/build.gradle"), null,
+                        OperationStatus.FAILED, "still locked")));
+
+        underTest.flush();
+        assertEquals(3, Files.readAllLines(underTest.getJournalFile()).size());
+
+        List<String> read = new ArrayList<>();
+        underTest.forEach((project, op) -> read.add(project + " " + op));
+        assertEquals(List.of("app_a " + move, "app_a " + delete, "app_b " + move), read);
+
+        // the journal is appended after reading
+        for (int i = 0; i < 2000; i++)
+        {
+            assertTrue(underTest.add("app_c", new Operation(OperationType.CREATE, null, Path.of("app_c/file" + i),
+                            OperationStatus.SUCCESS, null)));
+        }
+        int[] count = new int[1];
+        underTest.forEach((project, op) -> count[0]++);
+        assertEquals(2003, count[0]);
+    }
+
+    @Test
+    void testSummaryReport()
+    {
+        MigrationContext inMemory = new MigrationContext();
+        MigrationContext spilled = new MigrationContext(new JournalOperationStore(tempDir.resolve("operations")));
+        for (MigrationContext context : List.of(inMemory, spilled))
+        {
+            context.recordSuccess("app_a", OperationType.MOVE, Path.of("app_a/javasource"), Path.of("app_a/src/main/java"));
+            context.recordWarning("app_a", OperationType.MODIFY, Path.of("app_a/build.gradle"), Path.of("app_a/build.gradle"), "check");
+            context.recordFailure("app_b", OperationType.DELETE, Path.of("app_b/assembly"), null, "locked");
+            context.mergeThreadBuffers();
+            context.recordFailure("app_b", OperationType.DELETE, Path.of("app_b/assembly"), null, "locked");
+        }
+        assertEquals(inMemory.generateSummaryReport(), spilled.generateSummaryReport());
+        assertEquals(inMemory.getOperations(), spilled.getOperations());
+    }
+
+    @Test
+    void testListedSample()
+    {
+        MigrationContext underTest = new MigrationContext(new JournalOperationStore(tempDir.resolve("operations")));
+        int failures = JournalOperationStore.MAX_LISTED + 5;
+        for (int i = 0; i < failures; i++)
+        {
+            underTest.recordFailure("app_a", OperationType.DELETE, Path.of("app_a/file" + i), null, "locked");
+        }
+        underTest.recordSuccess("app_a", OperationType.MODIFY, Path.of("app_a/build.gradle"), Path.of("app_a/build.gradle"));
+
+        String report = underTest.generateSummaryReport();
+        assertTrue(report.contains("Project 'app_a': 1006 operations (1 successful, 0 skipped, 0 unknown, 0 warnings, 1005 failed)"), report);
+        assertTrue(report.contains("    - ... 5 more, not listed\n"), report);
+        assertEquals(JournalOperationStore.MAX_LISTED, report.lines().filter(l -> l.startsWith("    - FAILED")).count());
+    }
+
+    @Test
+    void testClose()
+    {
+        JournalOperationStore store = new JournalOperationStore(tempDir.resolve("operations"));
+        MigrationContext underTest = new MigrationContext(store);
+        underTest.recordFailure("app_a", OperationType.DELETE, Path.of("app_a/assembly"), null, "locked");
+        underTest.recordSuccess("app_a", OperationType.MODIFY, Path.of("app_a/build.gradle"), Path.of("app_a/build.gradle"));
+        String report = underTest.generateSummaryReport();
+
+        underTest.close();
+        assertFalse(Files.exists(store.getJournalFile()));
+        // the report is generated from the statistics and the listed operations
+        assertEquals(report, underTest.generateSummaryReport());
+    }
+}
@@ -0,0 +1,112 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
+import org.junit.jupiter.api.Test;
+
+class MigrationContextTest
+{
+    private static final int THREADS = 4;
+    private static final int OPERATIONS = 1000;
+
+    @Test
+    void testConcurrentRecording() throws Exception
+    {
+        MigrationContext underTest = new MigrationContext();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++)
+            {
+                String cartridge = "app_" + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < OPERATIONS; i++)
+                    {
+                        Path file = Path.of(cartridge, "file" + i);
+                        underTest.recordSuccess(cartridge, OperationType.MODIFY, file, file);
+                        // operations recorded by all threads
+                        underTest.recordSkipped("root", OperationType.CREATE, null, Path.of("file" + i), "exists");
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        underTest.mergeThreadBuffers();
+        assertEquals(THREADS + 1, underTest.getOperations().size());
+        assertEquals(OPERATIONS, underTest.getOperations().get("app_0").size());
+        // duplicates of different threads are merged into one operation
+        assertEquals(OPERATIONS, underTest.getOperations().get("root").size());
+
+        String report = underTest.generateSummaryReport();
+        assertTrue(report.contains("Project 'app_3': 1000 operations (1000 successful, 0 skipped"), report);
+        assertTrue(report.contains("Project 'root': 1000 operations (0 successful, 1000 skipped"), report);
+    }
+
+    @Test
+    void testDuplicatesAfterMerge()
+    {
+        MigrationContext underTest = new MigrationContext();
+        Path file = Path.of("app_a", "build.gradle");
+        underTest.recordSuccess("app_a", OperationType.MODIFY, file, file);
+        underTest.recordSuccess("app_a", OperationType.MODIFY, file, file);
+        assertEquals(1, underTest.getOperationCount());
+
+        underTest.mergeThreadBuffers();
+        underTest.recordSuccess("app_a", OperationType.MODIFY, file, file);
+        underTest.recordFailure("app_a", OperationType.MODIFY, file, file, "error");
+        assertEquals(2, underTest.getOperations().get("app_a").size());
+        assertTrue(underTest.generateSummaryReport().contains("Project 'app_a': 2 operations (1 successful, 0 skipped, 0 unknown, 0 warnings, 1 failed)"));
+    }
+
+    @Test
+    void testRecordAggregate()
+    {
+        MigrationContext underTest = new MigrationContext();
+        underTest.recordAggregate("app_a", OperationType.MOVE, Path.of("app_a/javasource"), Path.of("app_a/src/main/java"), 3200, 1048576);
+        underTest.recordFailure("app_a", OperationType.MOVE, Path.of("app_a/javasource/A.java"), null, "Cannot move file");
+        underTest.recordAggregate("app_a", OperationType.DELETE, Path.of("app_a/staticfiles"), null, 0, 0);
+
+        String report = underTest.generateSummaryReport();
+        assertTrue(report.contains("Project 'app_a': 3 operations (2 successful, 0 skipped, 0 unknown, 0 warnings, 1 failed)"), report);
+        assertTrue(report.contains("  Aggregated operations:\n    - SUCCESS MOVE: app_a/javasource -> app_a/src/main/java (3200 files, 1048576 bytes)\n"), report);
+        assertTrue(report.contains("  Failed operations:\n    - FAILED MOVE: app_a/javasource/A.java -> N/A (Cannot move file)\n"), report);
+        assertFalse(report.contains("staticfiles ("), report);
+    }
+
+    @Test
+    void testMergeFullBuffer()
+    {
+        CompactOperationStore store = new CompactOperationStore();
+        MigrationContext underTest = new MigrationContext(store);
+        for (int i = 0; i < MigrationContext.MAX_BUFFERED + 1; i++)
+        {
+            Path file = Path.of("app_a", "file" + i);
+            underTest.recordSuccess("app_a", OperationType.MOVE, file, file);
+        }
+        // a full buffer is merged without waiting for the end of the step
+        assertEquals(MigrationContext.MAX_BUFFERED, store.size());
+
+        underTest.mergeThreadBuffers();
+        assertEquals(MigrationContext.MAX_BUFFERED + 1, store.size());
+        assertTrue(underTest.generateSummaryReport().contains("Project 'app_a': 10001 operations (10001 successful"));
+    }
+}
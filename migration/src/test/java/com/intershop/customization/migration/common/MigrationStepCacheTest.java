@@ -0,0 +1,120 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.intershop.customization.migration.file.MoveFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MigrationStepCacheTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGetSteps() throws IOException
+    {
+        Path folder = Files.createDirectory(tempDir.resolve("steps"));
+        Path cacheDir = tempDir.resolve("cache");
+        writeStep(folder.resolve("010_first.yml"), MoveFiles.class.getName(), "10m");
+        writeStep(folder.resolve("020_second.yml"), MoveFiles.class.getName(), "30s");
+
+        MigrationStepCache underTest = new MigrationStepCache(cacheDir);
+        List<MigrationStep> parsed = underTest.getSteps(folder);
+        assertEquals(1, countCacheFiles(cacheDir));
+        // an unchanged folder returns the loaded steps, each migration gets a new migrator of the resolved class
+        assertSame(parsed, underTest.getSteps(folder));
+        MigrationPreparer migrator = underTest.getSteps(folder).get(0).getMigrator();
+        assertNotSame(parsed.get(0).getMigrator(), migrator);
+        assertEquals(MoveFiles.class, migrator.getClass());
+
+        // the steps read from the cache file are equal to the parsed ones
+        List<MigrationStep> cached = new MigrationStepCache(cacheDir).getSteps(folder);
+        assertEquals(parsed.stream().map(MigrationStep::getId).toList(), cached.stream().map(MigrationStep::getId).toList());
+        assertEquals(folder.resolve("010_first.yml").toAbsolutePath(), cached.get(0).getPath());
+        assertEquals(Duration.ofMinutes(10), cached.get(0).getCartridgeTimeout());
+        assertEquals("test: " + MoveFiles.class.getName(), cached.get(1).getMessage());
+        assertEquals(Map.of("dbprepare", "staticfiles/cartridge"), cached.get(1).getOption("source-map"));
+        assertEquals(MoveFiles.class, cached.get(1).getMigrator().getClass());
+
+        // a step description with another modification time, but the same content isn't parsed again
+        Path second = folder.resolve("020_second.yml");
+        Files.setLastModifiedTime(second, FileTime.fromMillis(Files.getLastModifiedTime(second).toMillis() + 1000));
+        assertSame(parsed, underTest.getSteps(folder));
+
+        // a changed step description is parsed again
+        writeStep(second, MoveFiles.class.getName(), "1h");
+        Files.setLastModifiedTime(second, FileTime.fromMillis(Files.getLastModifiedTime(second).toMillis() + 2000));
+        assertEquals(Duration.ofHours(1), underTest.getSteps(folder).get(1).getCartridgeTimeout());
+        assertEquals(Duration.ofHours(1), new MigrationStepCache(cacheDir).getSteps(folder).get(1).getCartridgeTimeout());
+        assertEquals(1, countCacheFiles(cacheDir));
+    }
+
+    @Test
+    void testPrune() throws IOException
+    {
+        Path folder = Files.createDirectory(tempDir.resolve("steps"));
+        Path cacheDir = Files.createDirectory(tempDir.resolve("cache"));
+        writeStep(folder.resolve("010_first.yml"), MoveFiles.class.getName(), "10m");
+        Path unused = Files.createFile(cacheDir.resolve("unused.steps"));
+        Files.setLastModifiedTime(unused, FileTime.from(Instant.now().minus(MigrationStepCache.MAX_AGE).minusSeconds(60)));
+        Path recent = Files.createFile(cacheDir.resolve("recent.steps"));
+
+        new MigrationStepCache(cacheDir).getSteps(folder);
+        assertFalse(Files.exists(unused));
+        assertTrue(Files.exists(recent));
+        assertEquals(2, countCacheFiles(cacheDir));
+    }
+
+    @Test
+    void testInvalidSteps() throws IOException
+    {
+        Path folder = Files.createDirectory(tempDir.resolve("steps"));
+        Path cacheDir = tempDir.resolve("cache");
+        writeStep(folder.resolve("010_unknown.yml"), "com.example.UnknownMigrator", "10m");
+        assertThrows(IllegalArgumentException.class, () -> new MigrationStepCache(cacheDir).getSteps(folder));
+
+        writeStep(folder.resolve("010_unknown.yml"), MoveFiles.class.getName(), "ten minutes");
+        assertThrows(IllegalArgumentException.class, () -> new MigrationStepCache(cacheDir).getSteps(folder));
+        assertEquals(0, countCacheFiles(cacheDir));
+    }
+
+    private static void writeStep(Path stepFile, String migrator, String cartridgeTimeout) throws IOException
+    {
+        Files.writeString(stepFile, String.join(System.lineSeparator(),
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + migrator,
+                        "message: \"test: " + migrator + "\"",
+                        "cartridgeTimeout: " + cartridgeTimeout,
+                        "options:",
+                        "  source-map:",
+                        "    dbprepare: staticfiles/cartridge"));
+    }
+
+    private static long countCacheFiles(Path cacheDir) throws IOException
+    {
+        if (!Files.exists(cacheDir))
+        {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(cacheDir))
+        {
+            return files.count();
+        }
+    }
+}
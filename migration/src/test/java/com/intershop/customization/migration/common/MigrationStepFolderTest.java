@@ -1,11 +1,16 @@
 package com.intershop.customization.migration.common;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -14,6 +19,7 @@ class MigrationStepFolderTest
 {
 
     private static final String RESOURCE_PACKAGE = "com.intershop.customization.migration.common";
+    private static final String BUNDLED_PACKAGE = "migration";
     private final MigrationStepFolder underTest = MigrationStepFolder.valueOf(RESOURCE_PACKAGE);
     
     @Test
@@ -24,4 +30,46 @@ class MigrationStepFolderTest
         assertTrue(resources.get(0).toString().endsWith("MigrationStepTest.yml"));
         assertEquals(1, underTest.getSteps().size());
    }
+
+    @Test
+    void testScannedURIs()
+    {
+        // resources are found by scanning the class path, if the index is missing
+        List<URI> resources = MigrationStepFolder.getURIs(RESOURCE_PACKAGE, ".yml", withoutIndex());
+        assertEquals(1, resources.size());
+        assertTrue(resources.get(0).toString().endsWith("MigrationStepTest.yml"));
+    }
+
+    @Test
+    void testIndexedURIs()
+    {
+        // the index generated at build time lists the bundled migration steps found by scanning the class path
+        for (String extension : List.of(".yml", ".yaml"))
+        {
+            List<URI> indexed = MigrationStepFolder.getIndexedURIs(BUNDLED_PACKAGE, extension).orElseThrow();
+            List<URI> scanned = MigrationStepFolder.getURIs(BUNDLED_PACKAGE, extension, withoutIndex());
+            assertFalse(scanned.isEmpty());
+            assertEquals(new HashSet<>(scanned), new HashSet<>(indexed));
+            assertEquals(scanned.size(), indexed.size());
+        }
+
+        // packages without indexed resources are scanned
+        assertTrue(MigrationStepFolder.getIndexedURIs(RESOURCE_PACKAGE, ".yml").isEmpty());
+        assertTrue(MigrationStepFolder.getIndexedURIs("com.intershop.unknown", ".yml").isEmpty());
+    }
+
+    /**
+     * @return a class loader hiding the index of the bundled resources
+     */
+    private static ClassLoader withoutIndex()
+    {
+        return new ClassLoader(MigrationStepFolderTest.class.getClassLoader())
+        {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException
+            {
+                return MigrationStepFolder.INDEX_RESOURCE.equals(name) ? Collections.emptyEnumeration() : super.getResources(name);
+            }
+        };
+    }
 }
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -63,6 +64,21 @@ class MigrationStepTest
         assertEquals(4, pkgs.size());
     }
 
+    @Test
+    void testTimeouts()
+    {
+        underTest.importOptions(String.join(System.lineSeparator(), "cartridgeTimeout: 10m", "stepTimeout: PT1H"));
+        assertEquals(Duration.ofMinutes(10), underTest.getCartridgeTimeout());
+        assertEquals(Duration.ofHours(1), underTest.getStepTimeout());
+
+        underTest.importOptions("cartridgeTimeout: 30");
+        assertEquals(Duration.ofSeconds(30), underTest.getCartridgeTimeout());
+        assertNull(underTest.getStepTimeout());
+
+        underTest.importOptions("cartridgeTimeout: soon");
+        assertThrows(IllegalArgumentException.class, underTest::getCartridgeTimeout);
+    }
+
     private URL getResourceURI(String resourcePath)
     {
         return getClass().getResource(resourcePath);
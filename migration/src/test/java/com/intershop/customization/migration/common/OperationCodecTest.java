@@ -0,0 +1,68 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+
+import com.intershop.customization.migration.common.MigrationContext.Operation;
+import com.intershop.customization.migration.common.MigrationContext.OperationStatus;
+import com.intershop.customization.migration.common.MigrationContext.OperationType;
+import org.junit.jupiter.api.Test;
+
+class OperationCodecTest
+{
+    @Test
+    void testRoundTrip()
+    {
+        Operation operation = new Operation(OperationType.MOVE, Path.of("app_a/javasource"),
+                        Path.of("app_a/src/main/java"), OperationStatus.WARNING, "quote \" backslash \\ tab \t line\nend \u0001");
+
+        String json = OperationCodec.encode("app_a", operation);
+        assertFalse(json.contains("\n"));
+
+        OperationCodec.ProjectOperation decoded = OperationCodec.decode(json);
+        assertEquals("app_a", decoded.projectName());
+        assertEquals(operation.type(), decoded.operation().type());
+        assertEquals(operation.source(), decoded.operation().source());
+        assertEquals(operation.target(), decoded.operation().target());
+        assertEquals(operation.status(), decoded.operation().status());
+        assertEquals(operation.message(), decoded.operation().message());
+    }
+
+    @Test
+    void testNullValues()
+    {
+        Operation operation = new Operation(OperationType.CREATE, null, Path.of("icm.properties"), OperationStatus.SUCCESS, null);
+
+        String json = OperationCodec.encode("root", operation);
+        assertEquals("{\"project\":\"root\",\"type\":\"CREATE\",\"source\":null,\"target\":\"icm.properties\",\"status\":\"SUCCESS\",\"message\":null}", json);
+
+        Operation decoded = OperationCodec.decode(json).operation();
+        assertEquals(null, decoded.source());
+        assertEquals(null, decoded.message());
+    }
+
+    @Test
+    void testAggregate()
+    {
+        Operation operation = new Operation(OperationType.DELETE, Path.of("assembly_a"), null, OperationStatus.SUCCESS, null, 12408, 5242880);
+
+        String json = OperationCodec.encode("assembly_a", operation);
+        assertEquals("{\"project\":\"assembly_a\",\"type\":\"DELETE\",\"source\":\"assembly_a\",\"target\":null,\"status\":\"SUCCESS\",\"message\":null,\"files\":12408,\"bytes\":5242880}", json);
+
+        Operation decoded = OperationCodec.decode(json).operation();
+        assertEquals(12408, decoded.fileCount());
+        assertEquals(5242880, decoded.byteCount());
+        assertEquals(0, OperationCodec.decode(OperationCodec.encode("root", new Operation(OperationType.DELETE,
+                        Path.of("a"), null, OperationStatus.SUCCESS, null))).operation().fileCount());
+    }
+
+    @Test
+    void testInvalid()
+    {
+        assertThrows(IllegalArgumentException.class, () -> OperationCodec.decode("{\"project\":\"root\""));
+        assertThrows(IllegalArgumentException.class, () -> OperationCodec.decode("[]"));
+    }
+}
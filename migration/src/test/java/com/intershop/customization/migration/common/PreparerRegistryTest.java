@@ -0,0 +1,47 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class PreparerRegistryTest
+{
+    @Test
+    void testBundledStepsUseBuiltInPreparers() throws IOException, URISyntaxException
+    {
+        Path stepFolders = Path.of(Objects.requireNonNull(getClass().getClassLoader().getResource("migration")).toURI());
+        List<Path> stepFiles;
+        try (Stream<Path> files = Files.walk(stepFolders))
+        {
+            stepFiles = files.filter(Files::isRegularFile).toList();
+        }
+
+        assertTrue(stepFiles.size() > 1);
+        for (Path stepFile : stepFiles)
+        {
+            MigrationStep step = MigrationStep.valueOf(stepFile);
+            String migrator = step.getDescription().migrator();
+            assertTrue(PreparerRegistry.getBuiltInPreparers().contains(migrator), migrator);
+            assertEquals(migrator, step.getMigrator().getClass().getName());
+        }
+    }
+
+    @Test
+    void testGetFactory()
+    {
+        for (String className : PreparerRegistry.getBuiltInPreparers())
+        {
+            assertEquals(className, PreparerRegistry.getFactory(className).orElseThrow().get().getClass().getName());
+        }
+        assertTrue(PreparerRegistry.getFactory("com.example.CustomPreparer").isEmpty());
+    }
+}
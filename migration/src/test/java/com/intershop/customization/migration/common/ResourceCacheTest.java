@@ -0,0 +1,53 @@
+package com.intershop.customization.migration.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import com.intershop.customization.migration.gradle.ConvertToKotlin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourceCacheTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGetResource() throws IOException
+    {
+        Path file = ResourceCache.getResource(ConvertToKotlin.GRADLE_KOTLIN_CONVERTER, tempDir);
+        assertEquals("gradlekotlinconverter.kts", file.getFileName().toString());
+        assertEquals(tempDir, file.getParent().getParent());
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(ConvertToKotlin.GRADLE_KOTLIN_CONVERTER))
+        {
+            assertArrayEquals(in.readAllBytes(), Files.readAllBytes(file));
+        }
+
+        // the extracted file is reused
+        assertEquals(file, ResourceCache.getResource(ConvertToKotlin.GRADLE_KOTLIN_CONVERTER, tempDir));
+
+        // a deleted file is extracted again to the same path
+        Files.delete(file);
+        assertEquals(file, ResourceCache.getResource(ConvertToKotlin.GRADLE_KOTLIN_CONVERTER, tempDir));
+        assertTrue(Files.isRegularFile(file));
+
+        // different resources are extracted to different folders
+        Path other = ResourceCache.getResource("environment/clean.sh.template", tempDir);
+        assertNotEquals(file.getParent(), other.getParent());
+    }
+
+    @Test
+    void testMissingResource()
+    {
+        assertThrows(NoSuchFileException.class, () -> ResourceCache.getResource("kotlin/unknown.kts", tempDir));
+    }
+}
@@ -0,0 +1,175 @@
+package com.intershop.customization.migration.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.MigrationStepCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MigrationDaemonTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testJobs() throws IOException, InterruptedException
+    {
+        Path project = Files.createDirectory(tempDir.resolve("project"));
+        Files.createFile(Files.createDirectory(project.resolve("app_a")).resolve("build.gradle"));
+        Path stepsDir = Files.createDirectory(tempDir.resolve("steps"));
+        writeStep(stepsDir);
+        Path socket = tempDir.resolve("daemon.sock");
+
+        Thread daemon = new Thread(() -> {
+            try
+            {
+                new MigrationDaemon(socket, new MigrationStepCache(tempDir.resolve("cache"))).serve();
+            }
+            catch(IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        daemon.setDaemon(true);
+        daemon.start();
+        awaitSocket(socket);
+
+        RecordingPreparer.MIGRATED.clear();
+        List<String> output = new ArrayList<>();
+        String[] job = { "projects", project.toString(), stepsDir.toString(), "--noAutoCommit",
+                        "--stateDir=" + tempDir.resolve("state") };
+        assertEquals(0, MigrationClient.submit(socket, job, output::add));
+        assertEquals(List.of("app_a"), RecordingPreparer.MIGRATED);
+
+        String[] invalidJob = { "projects", tempDir.resolve("missing").toString(), stepsDir.toString() };
+        assertEquals(2, MigrationClient.submit(socket, invalidJob, output::add));
+
+        assertEquals(0, MigrationClient.submit(socket, new String[] { MigrationClient.TASK_SHUTDOWN }, output::add));
+        daemon.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(daemon.isAlive());
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void testSocket() throws IOException, InterruptedException
+    {
+        // a socket file left by a killed daemon
+        Path socket = tempDir.resolve("daemon.sock");
+        try (ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+        {
+            stale.bind(UnixDomainSocketAddress.of(socket));
+        }
+        assertTrue(Files.exists(socket));
+
+        Thread daemon = new Thread(() -> {
+            try
+            {
+                new MigrationDaemon(socket, new MigrationStepCache(tempDir.resolve("cache"))).serve();
+            }
+            catch(IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        daemon.setDaemon(true);
+        daemon.start();
+        awaitListening(socket);
+
+        // a second daemon doesn't take the socket of a running one
+        assertThrows(IOException.class, () -> new MigrationDaemon(socket, new MigrationStepCache(tempDir.resolve("cache"))).serve());
+        assertEquals(0, MigrationClient.submit(socket, new String[] { MigrationClient.TASK_SHUTDOWN }, l -> { }));
+        daemon.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(daemon.isAlive());
+
+        // the socket isn't created in a directory accessible by other users
+        Path shared = Files.createDirectory(tempDir.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxr-xr-x"));
+        assertThrows(IOException.class, () -> new MigrationDaemon(shared.resolve("daemon.sock"), new MigrationStepCache(tempDir.resolve("cache"))).serve());
+        assertFalse(Files.exists(shared.resolve("daemon.sock")));
+
+        // a missing directory is created accessible by the owner only
+        Path created = tempDir.resolve("created");
+        Thread other = new Thread(() -> {
+            try
+            {
+                new MigrationDaemon(created.resolve("daemon.sock"), new MigrationStepCache(tempDir.resolve("cache"))).serve();
+            }
+            catch(IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        other.setDaemon(true);
+        other.start();
+        awaitListening(created.resolve("daemon.sock"));
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(created));
+        assertEquals(0, MigrationClient.submit(created.resolve("daemon.sock"), new String[] { MigrationClient.TASK_SHUTDOWN }, l -> { }));
+        other.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static Path writeStep(Path stepsDir) throws IOException
+    {
+        return Files.writeString(stepsDir.resolve("010_daemon.yml"), String.join("\n",
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + RecordingPreparer.class.getName(),
+                        "message: \"test: daemon\""));
+    }
+
+    private static void awaitListening(Path socket) throws IOException, InterruptedException
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socket)))
+            {
+                return;
+            }
+            catch(SocketException e)
+            {
+                Thread.sleep(50);
+            }
+        }
+        throw new IOException("Daemon isn't listening on '" + socket + "'.");
+    }
+
+    private static void awaitSocket(Path socket) throws InterruptedException
+    {
+        for (int i = 0; i < 100 && !Files.exists(socket); i++)
+        {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.exists(socket));
+    }
+
+    /**
+     * Preparer recording the migrated cartridges.
+     */
+    public static class RecordingPreparer implements MigrationPreparer
+    {
+        static final List<String> MIGRATED = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void migrate(Path resource, MigrationContext context)
+        {
+            MIGRATED.add(getResourceName(resource));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import com.intershop.customization.migration.execution.AdaptiveConcurrency.Load;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyTest
+{
+    @Test
+    void testAdjust() throws InterruptedException
+    {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (AdaptiveConcurrency underTest = new AdaptiveConcurrency(4, () -> 0, 0))
+        {
+            for (int i = 0; i < 8; i++)
+            {
+                executor.submit(() -> underTest.run(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    await(release);
+                    running.decrementAndGet();
+                }));
+            }
+            waitUntil(() -> running.get() == 2);
+            assertEquals(2, underTest.getLimit());
+
+            // additive increase while slots are busy, up to the maximum
+            assertEquals(3, underTest.adjust(new Load(0.5, 0.1, 100)));
+            waitUntil(() -> running.get() == 3);
+            assertEquals(4, underTest.adjust(new Load(0.5, 0.1, 100)));
+            waitUntil(() -> running.get() == 4);
+            assertEquals(4, underTest.adjust(new Load(0.5, 0.1, 100)));
+
+            // multiplicative decrease on heap or file descriptor pressure and on throughput drops after an increase
+            assertEquals(2, underTest.adjust(new Load(0.9, 0.1, 100)));
+            assertEquals(3, underTest.adjust(new Load(0.5, 0.1, 100)));
+            assertEquals(2, underTest.adjust(new Load(0.5, 0.1, 50)));
+            assertEquals(1, underTest.adjust(new Load(0.5, 0.9, 50)));
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(4, maxRunning.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSample()
+    {
+        try (AdaptiveConcurrency underTest = new AdaptiveConcurrency(4, () -> 0, 0))
+        {
+            Load load = underTest.sample();
+            assertTrue(load.heapUsage() > 0 && load.heapUsage() < 1, String.valueOf(load));
+            assertEquals(0.0, load.filesPerSecond());
+        }
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,43 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CartridgePrefetcherTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPrefetch() throws IOException, ExecutionException, InterruptedException
+    {
+        Path cartridge = Files.createDirectories(tempDir.resolve("app_a"));
+        Files.createDirectories(cartridge.resolve("staticfiles/cartridge"));
+        Files.createDirectories(cartridge.resolve("src/main/java"));
+        Files.writeString(cartridge.resolve("build.gradle"), "abc");
+        Files.writeString(cartridge.resolve("staticfiles/cartridge/config.xml"), "0123456789");
+        Files.writeString(cartridge.resolve("src/main/java/Test.java"), "class");
+
+        StepFootprint declared = new StepFootprint(true, List.of("*/staticfiles/**"), List.of("*/src/main/**"));
+        StepFootprint undeclared = new StepFootprint(false, List.of(), List.of());
+
+        try (CartridgePrefetcher underTest = new CartridgePrefetcher(CartridgePrefetcher.DEFAULT_MAX_BYTES))
+        {
+            assertEquals(10L, underTest.prefetch(tempDir, cartridge.toFile(), declared).get().longValue());
+            assertEquals(3L, underTest.prefetch(tempDir, cartridge.toFile(), undeclared).get().longValue());
+        }
+        try (CartridgePrefetcher underTest = new CartridgePrefetcher(4))
+        {
+            assertEquals(4L, underTest.prefetch(tempDir, cartridge.toFile(), StepFootprint.combine(List.of(declared,
+                            new StepFootprint(true, List.of("*/src/**"), List.of())))).get().longValue());
+        }
+    }
+}
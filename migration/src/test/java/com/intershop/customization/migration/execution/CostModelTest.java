@@ -0,0 +1,62 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CostModelTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEstimate()
+    {
+        CostModel underTest = CostModel.load(tempDir.resolve("costs"));
+        underTest.record("010", "app_a", 5);
+        underTest.record("010", "app_b", 100);
+        underTest.record("020", "app_b", 50);
+        underTest.record("010", "app_c", 20);
+        underTest.record("020", "app_c", 200);
+
+        List<File> cartridges = List.of(new File("app_a"), new File("app_b"), new File("app_c"), new File("app_d"));
+        Map<File, Long> costs = underTest.estimate(cartridges, List.of("010"));
+        assertEquals(List.of(new File("app_b"), new File("app_d"), new File("app_c"), new File("app_a")),
+                        List.copyOf(costs.keySet()));
+        // cartridges without recorded duration are as expensive as the most expensive one
+        assertEquals(100L, costs.get(new File("app_d")).longValue());
+
+        // costs of several steps are summed up, equal costs keep their order
+        costs = underTest.estimate(cartridges, List.of("010", "020"));
+        assertEquals(List.of(new File("app_a"), new File("app_c"), new File("app_d"), new File("app_b")),
+                        List.copyOf(costs.keySet()));
+        assertEquals(150L, costs.get(new File("app_b")).longValue());
+    }
+
+    @Test
+    void testSaveAndLoad() throws IOException
+    {
+        Path file = tempDir.resolve("costs");
+        CostModel underTest = CostModel.load(file);
+        underTest.record("010", "app_a", 5);
+        underTest.record("010", "app_b", 7);
+        underTest.save();
+
+        CostModel loaded = CostModel.load(file);
+        loaded.record("010", "app_a", 3);
+        assertEquals(Map.of(new File("app_b"), 7L, new File("app_a"), 3L),
+                        loaded.estimate(List.of(new File("app_a"), new File("app_b")), List.of("010")));
+
+        // an unreadable file is ignored
+        Files.writeString(file, "010\tapp_a\tbroken\n");
+        assertEquals(1L, CostModel.load(file).estimate(List.of(new File("app_a")), List.of("010")).get(new File("app_a")).longValue());
+    }
+}
@@ -0,0 +1,86 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DryRunOverlayTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDiff() throws IOException
+    {
+        Path project = Files.createDirectory(tempDir.resolve("project"));
+        Files.createDirectories(project.resolve("app_a/staticfiles"));
+        Files.createDirectories(project.resolve(".git"));
+        Files.writeString(project.resolve("app_a/build.gradle"), "plugins {\n    id 'java'\n}\n");
+        Files.writeString(project.resolve("app_a/staticfiles/config.xml"), "<config/>\n");
+        Files.writeString(project.resolve("app_a/unchanged.txt"), "unchanged\n");
+        Files.writeString(project.resolve(".git/HEAD"), "ref: refs/heads/main\n");
+
+        Path overlayDir;
+        String diff;
+        try (DryRunOverlay underTest = DryRunOverlay.create(project))
+        {
+            overlayDir = underTest.getOverlayDir();
+            assertFalse(Files.exists(overlayDir.resolve(".git")));
+
+            Files.writeString(overlayDir.resolve("app_a/build.gradle"), "plugins {\n    id 'java-library'\n}\n");
+            Files.createDirectories(overlayDir.resolve("app_a/src/main/resources"));
+            Files.move(overlayDir.resolve("app_a/staticfiles/config.xml"), overlayDir.resolve("app_a/src/main/resources/config.xml"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(3, underTest.writeDiff(out));
+            diff = out.toString(StandardCharsets.UTF_8);
+        }
+
+        assertTrue(diff.contains("--- a/app_a/build.gradle\n+++ b/app_a/build.gradle\n"), diff);
+        assertTrue(diff.contains("-    id 'java'\n+    id 'java-library'\n"), diff);
+        assertTrue(diff.contains("--- a/app_a/staticfiles/config.xml\n+++ /dev/null\n"), diff);
+        assertTrue(diff.contains("--- /dev/null\n+++ b/app_a/src/main/resources/config.xml\n"), diff);
+        assertFalse(diff.contains("unchanged.txt"), diff);
+
+        // project is untouched, the overlay is removed
+        assertTrue(Files.exists(project.resolve("app_a/staticfiles/config.xml")));
+        assertTrue(Files.readString(project.resolve("app_a/build.gradle")).contains("id 'java'\n"));
+        assertFalse(Files.exists(overlayDir));
+    }
+
+    @Test
+    void testFootprint() throws IOException
+    {
+        Path project = Files.createDirectory(tempDir.resolve("project"));
+        Files.createDirectories(project.resolve("app_a/staticfiles"));
+        Files.createDirectories(project.resolve("app_a/src/main/java"));
+        Files.writeString(project.resolve("app_a/build.gradle"), "plugins {\n    id 'java'\n}\n");
+        Files.writeString(project.resolve("app_a/staticfiles/config.xml"), "<config/>\n");
+        Files.writeString(project.resolve("app_a/src/main/java/Test.java"), "class Test {}\n");
+        StepFootprint footprint = new StepFootprint(true, List.of("*/staticfiles/**"), List.of("*/staticfiles/**"));
+
+        try (DryRunOverlay underTest = DryRunOverlay.create(project, footprint))
+        {
+            // files outside of the footprint are not copied and not reported as deleted
+            Path overlayDir = underTest.getOverlayDir();
+            assertTrue(Files.exists(overlayDir.resolve("app_a/build.gradle")));
+            assertTrue(Files.exists(overlayDir.resolve("app_a/staticfiles/config.xml")));
+            assertTrue(Files.isDirectory(overlayDir.resolve("app_a/src/main/java")));
+            assertFalse(Files.exists(overlayDir.resolve("app_a/src/main/java/Test.java")));
+            assertEquals(0, underTest.writeDiff(new ByteArrayOutputStream()));
+
+            Files.delete(overlayDir.resolve("app_a/staticfiles/config.xml"));
+            assertEquals(1, underTest.writeDiff(new ByteArrayOutputStream()));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.file.ClasspathResourceFileCopier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MigrationPlanTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFuse() throws IOException
+    {
+        Map<String, List<MigrationStep>> stepsByFolder = new LinkedHashMap<>();
+        stepsByFolder.put("002_migration_11_to_12", List.of(writeCopier("005_copy.yml", "rewrite.gradle", ""),
+                        writeCopier("010_other.yml", "other.txt", "src/**")));
+        stepsByFolder.put("003_migration_12_to_13", List.of(writeCopier("005_copy.yml", "rewrite.gradle", "")));
+
+        // the first copier is superseded by the last one, which overwrites its target
+        assertEquals(List.of("002_migration_11_to_12/010_other", "003_migration_12_to_13/005_copy"),
+                        MigrationPlan.fuse(stepsByFolder).stream().map(MigrationStep::getId).toList());
+
+        // a step in between reading the target keeps the first copier
+        stepsByFolder.put("002_migration_11_to_12", List.of(writeCopier("005_copy.yml", "rewrite.gradle", ""),
+                        writeCopier("010_other.yml", "other.txt", "rewrite.gradle")));
+        assertEquals(3, MigrationPlan.fuse(stepsByFolder).size());
+
+        // a single folder is unchanged
+        List<MigrationStep> steps = List.of(writeCopier("005_copy.yml", "rewrite.gradle", ""));
+        assertEquals(steps, MigrationPlan.fuse(Map.of("001", steps)));
+    }
+
+    @Test
+    void testFuseSelectedSteps() throws IOException
+    {
+        CountingPreparer.INSTANCES.set(0);
+        Map<String, List<MigrationStep>> stepsByFolder = new LinkedHashMap<>();
+        stepsByFolder.put("002_migration_11_to_12", List.of(writeCopier("005_copy.yml", "rewrite.gradle", ""),
+                        writeCounting("007_count.yml", "writes: [\"other.txt\"]")));
+        stepsByFolder.put("003_migration_12_to_13", List.of(writeCounting("003_count.yml", ""),
+                        writeCopier("005_copy.yml", "rewrite.gradle", "")));
+
+        // steps not selected are dropped before fusing and steps without footprint aren't compared
+        assertEquals(List.of("003_migration_12_to_13/003_count", "003_migration_12_to_13/005_copy"),
+                        MigrationPlan.fuse(stepsByFolder, NameSelector.valueOf("003_migration_12_to_13/*"))
+                                     .stream().map(MigrationStep::getId).toList());
+        assertEquals(List.of("002_migration_11_to_12/005_copy", "003_migration_12_to_13/003_count"),
+                        MigrationPlan.fuse(stepsByFolder, NameSelector.valueOf("002_migration_11_to_12/005_copy,*/003_count"))
+                                     .stream().map(MigrationStep::getId).toList());
+        assertEquals(0, CountingPreparer.INSTANCES.get());
+
+        // the selector applies to the ids of a single folder
+        assertEquals(List.of("005_copy"), MigrationPlan.fuse(Map.of("001", stepsByFolder.get("002_migration_11_to_12")),
+                        NameSelector.valueOf("005_copy")).stream().map(MigrationStep::getId).toList());
+    }
+
+    private MigrationStep writeCounting(String fileName, String footprint) throws IOException
+    {
+        Path stepFile = Files.writeString(tempDir.resolve(fileName), String.join("\n",
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + CountingPreparer.class.getName(),
+                        "message: \"test: count\"",
+                        footprint));
+        return MigrationStep.valueOf(stepFile);
+    }
+
+    public static class CountingPreparer implements MigrationPreparer
+    {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public CountingPreparer()
+        {
+            INSTANCES.incrementAndGet();
+        }
+    }
+
+    private MigrationStep writeCopier(String fileName, String target, String reads) throws IOException
+    {
+        Path stepFile = Files.writeString(tempDir.resolve(fileName), String.join("\n",
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + ClasspathResourceFileCopier.class.getName(),
+                        "message: \"test: copy\"",
+                        "reads: [" + (reads.isEmpty() ? "" : "\"" + reads + "\"") + "]",
+                        "writes: [\"" + target + "\"]",
+                        "options:",
+                        "  source-map:",
+                        "    file: gradle/rewrite-11to12.gradle",
+                        "  target-map:",
+                        "    file: " + target));
+        return MigrationStep.valueOf(stepFile);
+    }
+}
@@ -0,0 +1,34 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class NameSelectorTest
+{
+    @Test
+    void testMatches()
+    {
+        NameSelector underTest = NameSelector.valueOf("065_RenamedPackages, 07*");
+        assertTrue(underTest.matches("065_RenamedPackages"));
+        assertTrue(underTest.matches("070_ConvertToKotlin"));
+        assertFalse(underTest.matches("060_AddSiteContentPreparer"));
+        assertFalse(underTest.isAll());
+
+        assertTrue(NameSelector.valueOf(" ,").isAll());
+        assertTrue(NameSelector.ALL.matches("anything"));
+    }
+
+    @Test
+    void testGetLiteralNames()
+    {
+        assertEquals(Optional.of(List.of("app_a", "app_b")), NameSelector.valueOf("app_a,app_b").getLiteralNames());
+        assertEquals(Optional.empty(), NameSelector.valueOf("app_a,app_sf_*").getLiteralNames());
+        assertEquals(Optional.empty(), NameSelector.ALL.getLiteralNames());
+    }
+}
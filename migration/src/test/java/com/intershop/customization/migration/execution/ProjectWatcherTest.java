@@ -0,0 +1,72 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProjectWatcherTest
+{
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAwaitChanges() throws IOException, InterruptedException
+    {
+        Path cartridge = Files.createDirectories(tempDir.resolve("app_a/src/main/java"));
+        Files.createDirectories(tempDir.resolve(".git"));
+
+        try (ProjectWatcher underTest = new ProjectWatcher(tempDir))
+        {
+            Path file = Files.writeString(cartridge.resolve("Test.java"), "class Test {}");
+            assertEquals(Set.of(file), awaitChanges(underTest, Set.of(file)));
+
+            // content of a restored folder is reported, changes in hidden folders are ignored
+            Path restored = Files.createDirectories(tempDir.resolve("app_b_tmp/staticfiles"));
+            Path restoredFile = Files.writeString(restored.resolve("config.xml"), "<config/>");
+            Files.move(tempDir.resolve("app_b_tmp"), tempDir.resolve("app_b"));
+            Files.writeString(tempDir.resolve(".git/index"), "index");
+            Path movedFile = tempDir.resolve("app_b").resolve(tempDir.resolve("app_b_tmp").relativize(restoredFile));
+            assertEquals(Set.of(movedFile), awaitChanges(underTest, Set.of(movedFile)));
+
+            // acknowledged files are only reported if they are modified again
+            underTest.acknowledge(Set.of(file));
+            Path other = Files.writeString(cartridge.resolve("Other.java"), "class Other {}");
+            Set<Path> changes = awaitChanges(underTest, Set.of(other));
+            assertTrue(changes.contains(other));
+            assertFalse(changes.contains(file));
+        }
+    }
+
+    @Test
+    void testTimeout() throws InterruptedException
+    {
+        try (ProjectWatcher underTest = new ProjectWatcher(tempDir))
+        {
+            assertTrue(underTest.awaitChanges(Duration.ofMillis(10)).isEmpty());
+        }
+    }
+
+    // the polling implementation of some platforms may report changes in several batches
+    private static Set<Path> awaitChanges(ProjectWatcher watcher, Set<Path> expected) throws InterruptedException
+    {
+        Set<Path> changes = new HashSet<>();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!changes.containsAll(expected) && System.nanoTime() < deadline)
+        {
+            changes.addAll(watcher.awaitChanges(TIMEOUT));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,121 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.intershop.customization.migration.common.MigrationContext;
+import com.intershop.customization.migration.common.MigrationPreparer;
+import com.intershop.customization.migration.common.MigrationStep;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardPoolTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSplit()
+    {
+        List<File> cartridges = List.of(new File("a"), new File("b"), new File("c"));
+        assertEquals(List.of(List.of(new File("a"), new File("c")), List.of(new File("b"))), ShardPool.split(cartridges, 2));
+        assertEquals(List.of(List.of(new File("a")), List.of(), List.of()), ShardPool.split(List.of(new File("a")), 3));
+    }
+
+    @Test
+    void testSplitByCost()
+    {
+        // ordered by descending cost, each cartridge goes to the shard with the lowest load
+        Map<File, Long> costs = Map.of(new File("a"), 10L, new File("b"), 6L, new File("c"), 5L, new File("d"), 1L);
+        List<File> cartridges = List.of(new File("a"), new File("b"), new File("c"), new File("d"));
+        assertEquals(List.of(List.of(new File("a"), new File("d")), List.of(new File("b"), new File("c"))),
+                        ShardPool.split(cartridges, 2, costs::get));
+    }
+
+    @Test
+    void testMigrate() throws IOException
+    {
+        List<File> cartridges = new ArrayList<>();
+        for (String name : List.of("app_a", "app_b", "app_c", "app_d", "app_e"))
+        {
+            cartridges.add(Files.createDirectory(tempDir.resolve(name)).toFile());
+        }
+        MigrationStep step = writeStep("010_marker.yml", MarkerPreparer.class);
+        MigrationStep failingStep = writeStep("020_failing.yml", FailingPreparer.class);
+
+        MigrationContext context = new MigrationContext();
+        List<String> done = Collections.synchronizedList(new ArrayList<>());
+        try (ShardPool underTest = new ShardPool(2, ShardPool.getDefaultWorkerCommand()))
+        {
+            underTest.migrate(step, cartridges, context, c -> done.add(c.getName()));
+
+            assertThrows(IllegalStateException.class,
+                            () -> underTest.migrate(failingStep, cartridges, new MigrationContext(), c -> {}));
+        }
+
+        // cartridges are migrated by the worker processes, the operations are merged
+        cartridges.forEach(c -> assertTrue(new File(c, MarkerPreparer.MARKER).exists(), c.getName()));
+        assertEquals(Set.of("app_a", "app_b", "app_c", "app_d", "app_e"), Set.copyOf(done));
+        assertEquals(Set.of("app_a", "app_b", "app_c", "app_d", "app_e"), context.getOperations().keySet());
+        assertEquals(MigrationContext.OperationType.CREATE,
+                        context.getOperations().get("app_c").get(0).type());
+        assertEquals(Set.of(MigrationContext.OperationStatus.SUCCESS), context.getOperations().values().stream()
+                        .flatMap(List::stream).map(MigrationContext.Operation::status).collect(Collectors.toSet()));
+    }
+
+    private MigrationStep writeStep(String fileName, Class<? extends MigrationPreparer> migrator) throws IOException
+    {
+        Path stepFile = Files.writeString(tempDir.resolve(fileName), String.join("\n",
+                        "type: specs.intershop.com/v1beta/migrate",
+                        "migrator: " + migrator.getName(),
+                        "message: \"test: shard\""));
+        return MigrationStep.valueOf(stepFile);
+    }
+
+    /**
+     * Preparer creating a marker file in each cartridge.
+     */
+    public static class MarkerPreparer implements MigrationPreparer
+    {
+        static final String MARKER = "migrated.txt";
+
+        @Override
+        public void migrate(Path resource, MigrationContext context)
+        {
+            try
+            {
+                Path marker = Files.writeString(resource.resolve(MARKER), ProcessHandle.current().pid() + "\n");
+                context.recordSuccess(getResourceName(resource), MigrationContext.OperationType.CREATE, null, marker);
+            }
+            catch(IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Preparer failing for each cartridge.
+     */
+    public static class FailingPreparer implements MigrationPreparer
+    {
+        @Override
+        public void migrate(Path resource, MigrationContext context)
+        {
+            throw new IllegalStateException("migration failed");
+        }
+    }
+}
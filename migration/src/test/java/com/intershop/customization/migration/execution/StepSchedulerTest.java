@@ -0,0 +1,232 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.intershop.customization.migration.common.MigrationStep;
+import com.intershop.customization.migration.common.MigrationStepFolder;
+import org.junit.jupiter.api.Test;
+
+class StepSchedulerTest
+{
+    @Test
+    void testOverlaps()
+    {
+        assertTrue(StepFootprint.overlaps("*/build.gradle", "app_a/build.gradle"));
+        assertTrue(StepFootprint.overlaps("*/src/**", "*/src/main/java/**"));
+        assertTrue(StepFootprint.overlaps("*/src", "*/src/main/java"));
+        assertFalse(StepFootprint.overlaps("*/build.gradle", "*/src/**"));
+        assertFalse(StepFootprint.overlaps("*.version", "versions/**"));
+        assertFalse(StepFootprint.overlaps("*/staticfiles/**", "*/javasource/**"));
+    }
+
+    @Test
+    void testConflicts()
+    {
+        StepFootprint gradle = new StepFootprint(true, List.of("*/build.gradle"), List.of("*/build.gradle"));
+        StepFootprint sources = new StepFootprint(true, List.of("*/src/**"), List.of("*/src/**"));
+        StepFootprint readSources = new StepFootprint(true, List.of("*/src/main/java/**"), List.of("*/report.txt"));
+        StepFootprint undeclared = new StepFootprint(false, List.of(), List.of());
+
+        assertFalse(gradle.conflictsWith(sources));
+        assertTrue(sources.conflictsWith(readSources));
+        assertTrue(readSources.conflictsWith(sources));
+        assertTrue(gradle.conflictsWith(undeclared));
+        assertTrue(undeclared.conflictsWith(gradle));
+    }
+
+    @Test
+    void testIsWritten()
+    {
+        StepFootprint footprint = new StepFootprint(true, List.of(), List.of("*/build.gradle", "*/src/main"));
+        assertTrue(footprint.isWritten("app_a/build.gradle"));
+        assertTrue(footprint.isWritten("app_a/src/main/java/Test.java"));
+        assertFalse(footprint.isWritten("app_a/src/test/java/Test.java"));
+        assertFalse(footprint.isWritten("build.gradle"));
+    }
+
+    @Test
+    void testBundledFootprints() throws URISyntaxException
+    {
+        Path stepsDir = Path.of(getClass().getClassLoader().getResource("migration/001_migration_7x10_to_11").toURI());
+        List<MigrationStep> steps = MigrationStepFolder.valueOf(stepsDir).getSteps();
+        assertFalse(steps.isEmpty());
+        for (MigrationStep step : steps)
+        {
+            assertTrue(step.hasFootprint(), step.getId());
+        }
+
+        // the version files are deleted after their content is transferred to the versions project
+        MigrationStep versions = steps.stream().filter(s -> s.getId().startsWith("055_")).findFirst().orElseThrow();
+        assertTrue(StepFootprint.valueOf(versions).isWritten("project.version"));
+    }
+
+    @Test
+    void testDependencies()
+    {
+        StepScheduler underTest = new StepScheduler(List.of(
+                        step("*/build.gradle"),
+                        step("*/src/**"),
+                        step("*/build.gradle"),
+                        step(null),
+                        step("*/src/**")));
+
+        assertEquals(List.of(Set.of(), Set.of(), Set.of(0), Set.of(0, 1, 2), Set.of(1, 3)),
+                        underTest.getDependencies());
+    }
+
+    @Test
+    void testExecuteCommitsInDeclaredOrder() throws InterruptedException
+    {
+        MigrationStep first = step("*/build.gradle");
+        MigrationStep second = step("*/src/**");
+        CountDownLatch secondFinished = new CountDownLatch(1);
+        List<MigrationStep> commits = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            new StepScheduler(List.of(first, second)).execute(executor, step -> {
+                if (step == first)
+                {
+                    // the independent second step finishes before the first one
+                    await(secondFinished);
+                }
+                else
+                {
+                    secondFinished.countDown();
+                }
+            }, (step, footprint) -> commits.add(step));
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(first, second), commits);
+    }
+
+    @Test
+    void testExecuteAfterCommit() throws InterruptedException
+    {
+        MigrationStep first = step("*/build.gradle");
+        MigrationStep second = step("*/src/**");
+        MigrationStep third = step("*/src/**");
+        CountDownLatch secondFinished = new CountDownLatch(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            new StepScheduler(List.of(first, second, third)).execute(executor, step -> {
+                if (step == first)
+                {
+                    // the second step finishes first, but is committed after the first one
+                    await(secondFinished);
+                    sleep(200);
+                }
+                else if (step == second)
+                {
+                    secondFinished.countDown();
+                }
+                else
+                {
+                    events.add("start third");
+                }
+            }, (step, footprint) -> events.add("commit " + (step == first ? "first" : step == second ? "second" : "third")));
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        // the changes of the third step must not be staged by the commit of the second one
+        assertEquals(List.of("commit first", "commit second", "start third", "commit third"), events);
+    }
+
+    @Test
+    void testExecuteFailure() throws InterruptedException
+    {
+        MigrationStep failing = step("*/build.gradle");
+        MigrationStep dependent = step("*/build.gradle");
+        List<MigrationStep> executed = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            StepScheduler underTest = new StepScheduler(List.of(failing, dependent));
+            assertThrows(IllegalStateException.class, () -> underTest.execute(executor, step -> {
+                executed.add(step);
+                if (step == failing)
+                {
+                    throw new IllegalStateException("failed");
+                }
+            }, (step, footprint) -> {}));
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(failing), executed);
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MigrationStep step(String pattern)
+    {
+        MigrationStep step = new MigrationStep();
+        if (pattern == null)
+        {
+            step.importOptions("migrator: none");
+        }
+        else
+        {
+            step.importOptions(String.join(System.lineSeparator(),
+                            "migrator: none",
+                            "reads:",
+                            "  - \"" + pattern + "\"",
+                            "writes:",
+                            "  - \"" + pattern + "\""));
+        }
+        return step;
+    }
+}
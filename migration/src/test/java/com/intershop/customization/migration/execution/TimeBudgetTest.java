@@ -0,0 +1,45 @@
+package com.intershop.customization.migration.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intershop.customization.migration.common.MigrationCancelledException;
+import org.junit.jupiter.api.Test;
+
+class TimeBudgetTest
+{
+    @Test
+    void testNestedBudgets() throws InterruptedException
+    {
+        try (TimeBudget underTest = new TimeBudget())
+        {
+            TimeBudget.Budget step = underTest.start("step", Duration.ofMillis(100), null);
+            TimeBudget.Budget cartridge = underTest.start("cartridge", null, step);
+            TimeBudget.Budget finished = underTest.start("finished", null, step);
+            finished.close();
+
+            // actions registered for the cartridge, e.g. destroying a process, run when the step budget is exceeded
+            CountDownLatch destroyed = new CountDownLatch(1);
+            AtomicInteger unregistered = new AtomicInteger();
+            cartridge.getToken().onCancel(destroyed::countDown);
+            Runnable unregister = cartridge.getToken().onCancel(unregistered::incrementAndGet);
+            unregister.run();
+
+            assertTrue(destroyed.await(10, TimeUnit.SECONDS));
+            assertTrue(cartridge.isExceeded());
+            assertEquals("step exceeded its time budget of PT0.1S", cartridge.getReason());
+            assertThrows(MigrationCancelledException.class, () -> cartridge.getToken().throwIfCancelled());
+            assertEquals(0, unregistered.get());
+            assertFalse(finished.getToken().isCancelled());
+            cartridge.close();
+            step.close();
+        }
+    }
+}